@@ -2,12 +2,14 @@ package com.example.bookstore;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * کلاس اصلی Spring Boot Application
  * نکته: @SpringBootApplication شامل @Configuration, @EnableAutoConfiguration, @ComponentScan می‌شود
  */
 @SpringBootApplication
+@EnableScheduling
 public class BookstoreApplication {
 
     // متد main - نقطه شروع برنامه جاوا
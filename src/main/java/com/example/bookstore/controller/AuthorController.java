@@ -1,14 +1,23 @@
 package com.example.bookstore.controller;
 
 import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.AuthorRankDTO;
+import com.example.bookstore.dto.AuthorSuggestionDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
 import com.example.bookstore.service.AuthorService;
+import com.example.bookstore.service.ResourceVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST Controller: مدیریت درخواست‌های HTTP
@@ -17,6 +26,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/authors")
 @CrossOrigin(origins = "*") // برای توسعه front-end
+@Validated // برای اعتبارسنجی تک‌تک اعضای لیست در endpointهای دسته‌ای
 public class AuthorController {
 
     private final AuthorService authorService;
@@ -26,20 +36,72 @@ public class AuthorController {
         this.authorService = authorService;
     }
 
-    // GET /api/authors - دریافت همه نویسندگان
+    // GET /api/authors?cursor=&size= - دریافت همه نویسندگان به صورت صفحه‌بندی keyset
     @GetMapping
-    public ResponseEntity<List<AuthorDTO>> getAllAuthors() {
-        List<AuthorDTO> authors = authorService.getAllAuthors();
+    public ResponseEntity<CursorPage<AuthorDTO>> getAllAuthors(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = authorService.getAuthorListVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<AuthorDTO> authors = authorService.getAllAuthors(cursor, size);
+        return ResponseEntity.ok(authors);
+    }
+
+    // GET /api/authors?fields=fullName,bookCount - فقط فیلدهای خواسته‌شده، با SELECT همان ستون‌ها
+    @GetMapping(params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getAllAuthorFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = authorService.getAuthorListVersion().withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(authorService.getAuthorFields(fields, cursor, size));
+    }
+
+    // GET /api/authors?ids=1,2,3 - دریافت چند نویسنده با یک کوئری IN، به ترتیب درخواست
+    @GetMapping(params = "ids")
+    public ResponseEntity<LookupResult<AuthorDTO>> getAuthorsByIds(@RequestParam List<Long> ids) {
+        LookupResult<AuthorDTO> authors = authorService.getAuthorsByIds(ids);
+        return ResponseEntity.ok(authors);
+    }
+
+    // POST /api/authors/lookup - همان دریافت چندتایی با بدنه برای فهرست‌های طولانی
+    @PostMapping("/lookup")
+    public ResponseEntity<LookupResult<AuthorDTO>> lookupAuthors(@RequestBody List<Long> ids) {
+        LookupResult<AuthorDTO> authors = authorService.getAuthorsByIds(ids);
         return ResponseEntity.ok(authors);
     }
 
     // GET /api/authors/{id} - دریافت نویسنده بر اساس ID
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id) {
+    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = authorService.getAuthorVersion(id);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
         AuthorDTO author = authorService.getAuthorById(id);
         return ResponseEntity.ok(author);
     }
 
+    // GET /api/authors/{id}?fields= - فیلدهای خواسته‌شده یک نویسنده
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getAuthorFieldsById(
+            @PathVariable Long id,
+            @RequestParam String fields,
+            WebRequest request) {
+        ResourceVersion version = authorService.getAuthorVersion(id).withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(authorService.getAuthorFieldsById(id, fields));
+    }
+
     // POST /api/authors - ایجاد نویسنده جدید
     @PostMapping
     public ResponseEntity<AuthorDTO> createAuthor(@Valid @RequestBody AuthorDTO authorDTO) {
@@ -47,6 +109,13 @@ public class AuthorController {
         return new ResponseEntity<>(createdAuthor, HttpStatus.CREATED);
     }
 
+    // POST /api/authors/batch - ایجاد دسته‌ای نویسندگان در یک تراکنش
+    @PostMapping("/batch")
+    public ResponseEntity<List<AuthorDTO>> createAuthors(@RequestBody List<@Valid AuthorDTO> authorDTOs) {
+        List<AuthorDTO> createdAuthors = authorService.createAuthors(authorDTOs);
+        return new ResponseEntity<>(createdAuthors, HttpStatus.CREATED);
+    }
+
     // PUT /api/authors/{id} - به روزرسانی نویسنده
     @PutMapping("/{id}")
     public ResponseEntity<AuthorDTO> updateAuthor(
@@ -56,6 +125,13 @@ public class AuthorController {
         return ResponseEntity.ok(updatedAuthor);
     }
 
+    // PATCH /api/authors/{id} - ویرایش جزئی نویسنده (JSON Merge Patch)؛ با فیلد version بدون خواندن نویسنده
+    @PatchMapping(value = "/{id}", consumes = {BookController.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<AuthorDTO> patchAuthor(@PathVariable Long id, @RequestBody Map<String, Object> patch) {
+        AuthorDTO updatedAuthor = authorService.patchAuthor(id, patch);
+        return ResponseEntity.ok(updatedAuthor);
+    }
+
     // DELETE /api/authors/{id} - حذف نویسنده
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAuthor(@PathVariable Long id) {
@@ -65,16 +141,44 @@ public class AuthorController {
 
     // GET /api/authors/search - جستجوی نویسندگان بر اساس نام
     @GetMapping("/search")
-    public ResponseEntity<List<AuthorDTO>> searchAuthors(@RequestParam String name) {
-        List<AuthorDTO> authors = authorService.searchAuthorsByName(name);
+    public ResponseEntity<CursorPage<AuthorDTO>> searchAuthors(
+            @RequestParam String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AuthorDTO> authors = authorService.searchAuthorsByName(name, cursor, size);
+        return ResponseEntity.ok(authors);
+    }
+
+    // GET /api/authors/suggest?prefix=&limit= - پیشنهاد خودکار نام نویسنده از حافظه
+    @GetMapping("/suggest")
+    public ResponseEntity<List<AuthorSuggestionDTO>> suggestAuthors(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<AuthorSuggestionDTO> suggestions = authorService.suggestAuthors(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
+    // GET /api/authors/top?by=books|borrows&limit= - نویسندگان برتر بر اساس تعداد کتاب یا تعداد امانت
+    @GetMapping("/top")
+    public ResponseEntity<List<AuthorRankDTO>> getTopAuthors(
+            @RequestParam(defaultValue = "books") String by,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<AuthorRankDTO> authors = authorService.getTopAuthors(by, limit);
         return ResponseEntity.ok(authors);
     }
 
-    // GET /api/authors/with-min-books - نویسندگان با حداقل تعداد کتاب
+    // GET /api/authors/with-min-books - نویسندگان با حداقل تعداد کتاب، مرتب بر اساس تعداد کتاب (نزولی)
     @GetMapping("/with-min-books")
-    public ResponseEntity<List<AuthorDTO>> getAuthorsWithMinimumBooks(
-            @RequestParam(defaultValue = "1") int minBooks) {
-        List<AuthorDTO> authors = authorService.getAuthorsWithMinimumBooks(minBooks);
+    public ResponseEntity<CursorPage<AuthorDTO>> getAuthorsWithMinimumBooks(
+            @RequestParam(defaultValue = "1") int minBooks,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = authorService.getAuthorListVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<AuthorDTO> authors = authorService.getAuthorsWithMinimumBooks(minBooks, cursor, size);
         return ResponseEntity.ok(authors);
     }
 
@@ -1,43 +1,135 @@
 package com.example.bookstore.controller;
 
 import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BookFacetsDTO;
+import com.example.bookstore.dto.BookLoanDTO;
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.dto.BookUpsertResultDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
+import com.example.bookstore.dto.PriceAdjustmentDTO;
+import com.example.bookstore.dto.PriceAdjustmentResultDTO;
+import com.example.bookstore.dto.TrendingBooksDTO;
 import com.example.bookstore.enums.BookCategory;
 import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.enums.ExportFormat;
+import com.example.bookstore.service.BookExportService;
 import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.PricingService;
+import com.example.bookstore.service.ResourceVersion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/books")
 @CrossOrigin(origins = "*")
+@Validated
 public class BookController {
 
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final BookService bookService;
+    private final BookExportService bookExportService;
+    private final PricingService pricingService;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookExportService bookExportService,
+                          PricingService pricingService) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
+        this.pricingService = pricingService;
     }
 
-    // GET /api/books - دریافت همه کتاب‌ها
+    // GET /api/books?cursor=&size= - دریافت همه کتاب‌ها به صورت صفحه‌بندی keyset
     @GetMapping
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        List<BookDTO> books = bookService.getAllBooks();
+    public ResponseEntity<CursorPage<BookDTO>> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBookListVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<BookDTO> books = bookService.getAllBooks(cursor, size);
+        return ResponseEntity.ok(books);
+    }
+
+    // GET /api/books?fields=title,isbn,status - فقط فیلدهای خواسته‌شده، با SELECT همان ستون‌ها
+    @GetMapping(params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getAllBookFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBookListVersion().withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBookFields(fields, null, null, null, cursor, size));
+    }
+
+    // GET /api/books?ids=1,2,3 - دریافت چند کتاب با یک کوئری IN، به ترتیب درخواست
+    @GetMapping(params = "ids")
+    public ResponseEntity<LookupResult<BookDTO>> getBooksByIds(@RequestParam List<Long> ids) {
+        LookupResult<BookDTO> books = bookService.getBooksByIds(ids);
         return ResponseEntity.ok(books);
     }
 
+    // POST /api/books/lookup - همان دریافت چندتایی با بدنه برای فهرست‌های طولانی
+    @PostMapping("/lookup")
+    public ResponseEntity<LookupResult<BookDTO>> lookupBooks(@RequestBody List<Long> ids) {
+        LookupResult<BookDTO> books = bookService.getBooksByIds(ids);
+        return ResponseEntity.ok(books);
+    }
+
+    // GET /api/books/export?format=NDJSON|CSV - خروجی stream از کل کاتالوگ
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> bookExportService.exportBooks(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"books." + format.getFileExtension() + "\"")
+                .body(body);
+    }
+
     // GET /api/books/{id} - دریافت کتاب بر اساس ID
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = bookService.getBookVersion(id);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
         BookDTO book = bookService.getBookById(id);
         return ResponseEntity.ok(book);
     }
 
+    // GET /api/books/{id}?fields= - فیلدهای خواسته‌شده یک کتاب
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getBookFieldsById(
+            @PathVariable Long id,
+            @RequestParam String fields,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBookVersion(id).withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBookFieldsById(id, fields));
+    }
+
     // POST /api/books - ایجاد کتاب جدید
     @PostMapping
     public ResponseEntity<BookDTO> createBook(@Valid @RequestBody BookDTO bookDTO) {
@@ -45,6 +137,13 @@ public class BookController {
         return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
     }
 
+    // POST /api/books/batch - ایجاد دسته‌ای کتاب‌ها در یک تراکنش با INSERT دسته‌ای
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookDTO>> createBooks(@RequestBody List<@Valid BookDTO> bookDTOs) {
+        List<BookDTO> createdBooks = bookService.createBooks(bookDTOs);
+        return new ResponseEntity<>(createdBooks, HttpStatus.CREATED);
+    }
+
     // PUT /api/books/{id} - به روزرسانی کتاب
     @PutMapping("/{id}")
     public ResponseEntity<BookDTO> updateBook(
@@ -54,6 +153,36 @@ public class BookController {
         return ResponseEntity.ok(updatedBook);
     }
 
+    // POST /api/books/prices/adjust - تغییر گروهی قیمت با UPDATE مجموعه‌ای (مثلاً ۸٪ افزایش یک دسته‌بندی)
+    @PostMapping("/prices/adjust")
+    public ResponseEntity<PriceAdjustmentResultDTO> adjustPrices(@Valid @RequestBody PriceAdjustmentDTO adjustment) {
+        PriceAdjustmentResultDTO result = pricingService.adjustPrices(adjustment);
+        return ResponseEntity.ok(result);
+    }
+
+    // PATCH /api/books/{id} - ویرایش جزئی کتاب (JSON Merge Patch)؛ با فیلد version بدون خواندن کتاب
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BookDTO> patchBook(@PathVariable Long id, @RequestBody Map<String, Object> patch) {
+        BookDTO updatedBook = bookService.patchBook(id, patch);
+        return ResponseEntity.ok(updatedBook);
+    }
+
+    // PUT /api/books/isbn/{isbn} - ایجاد یا به روزرسانی کتاب بر اساس شابک با یک دستور
+    @PutMapping("/isbn/{isbn}")
+    public ResponseEntity<BookUpsertResultDTO> upsertBook(
+            @PathVariable String isbn,
+            @Valid @RequestBody BookDTO bookDTO) {
+        BookUpsertResultDTO result = bookService.upsertBook(isbn, bookDTO);
+        return new ResponseEntity<>(result, result.isCreated() ? HttpStatus.CREATED : HttpStatus.OK);
+    }
+
+    // PUT /api/books/isbn - upsert دسته‌ای بر اساس شابک با JDBC batch
+    @PutMapping("/isbn")
+    public ResponseEntity<List<BookUpsertResultDTO>> upsertBooks(@RequestBody List<@Valid BookDTO> bookDTOs) {
+        List<BookUpsertResultDTO> results = bookService.upsertBooks(bookDTOs);
+        return ResponseEntity.ok(results);
+    }
+
     // DELETE /api/books/{id} - حذف کتاب
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
@@ -63,29 +192,138 @@ public class BookController {
 
     // GET /api/books/category/{category} - دریافت کتاب‌ها بر اساس دسته‌بندی
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<BookDTO>> getBooksByCategory(@PathVariable BookCategory category) {
-        List<BookDTO> books = bookService.getBooksByCategory(category);
+    public ResponseEntity<CursorPage<BookDTO>> getBooksByCategory(
+            @PathVariable BookCategory category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByCategoryVersion(category);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<BookDTO> books = bookService.getBooksByCategory(category, cursor, size);
         return ResponseEntity.ok(books);
     }
 
+    // GET /api/books/category/{category}?fields= - فیلدهای خواسته‌شده کتاب‌های یک دسته‌بندی
+    @GetMapping(value = "/category/{category}", params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getBookFieldsByCategory(
+            @PathVariable BookCategory category,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByCategoryVersion(category).withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBookFields(fields, category, null, null, cursor, size));
+    }
+
     // GET /api/books/status/{status} - دریافت کتاب‌ها بر اساس وضعیت
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<BookDTO>> getBooksByStatus(@PathVariable BookStatus status) {
-        List<BookDTO> books = bookService.getBooksByStatus(status);
+    public ResponseEntity<CursorPage<BookDTO>> getBooksByStatus(
+            @PathVariable BookStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByStatusVersion(status);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<BookDTO> books = bookService.getBooksByStatus(status, cursor, size);
         return ResponseEntity.ok(books);
     }
 
-    // GET /api/books/search - جستجوی کتاب‌ها بر اساس عنوان
+    // GET /api/books/status/{status}?fields= - فیلدهای خواسته‌شده کتاب‌های یک وضعیت
+    @GetMapping(value = "/status/{status}", params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getBookFieldsByStatus(
+            @PathVariable BookStatus status,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByStatusVersion(status).withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBookFields(fields, null, status, null, cursor, size));
+    }
+
+    // GET /api/books/search - جستجوی رتبه‌بندی‌شده در عنوان، نام نویسنده و شابک
     @GetMapping("/search")
-    public ResponseEntity<List<BookDTO>> searchBooks(@RequestParam String title) {
-        List<BookDTO> books = bookService.searchBooksByTitle(title);
+    public ResponseEntity<CursorPage<BookDTO>> searchBooks(
+            @RequestParam String title,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<BookDTO> books = bookService.searchBooksByTitle(title, cursor, size);
         return ResponseEntity.ok(books);
     }
 
+    // POST /api/books/search/reindex - ساخت دوباره index جستجو از دیتابیس
+    @PostMapping("/search/reindex")
+    public ResponseEntity<Map<String, Long>> rebuildSearchIndex() {
+        long indexed = bookService.rebuildSearchIndex();
+        return ResponseEntity.ok(Collections.singletonMap("indexed", indexed));
+    }
+
+    // GET /api/books/facets?category=FICTION&status=AVAILABLE&priceRange=10-20 - شمارش facetها برای UI کاتالوگ
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDTO> getBookFacets(
+            @RequestParam(required = false) List<BookCategory> category,
+            @RequestParam(required = false) List<BookStatus> status,
+            @RequestParam(required = false) List<String> priceRange) {
+        BookFacetsDTO facets = bookService.getBookFacets(category, status, priceRange);
+        return ResponseEntity.ok(facets);
+    }
+
+    // GET /api/books/trending?window=hour|day|week&limit= - پرامانت‌ترین کتاب‌های پنجره زمانی از sketch درون حافظه
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingBooksDTO> getTrendingBooks(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        TrendingBooksDTO trending = bookService.getTrendingBooks(window, limit);
+        return ResponseEntity.ok(trending);
+    }
+
     // GET /api/books/author/{authorId} - دریافت کتاب‌های یک نویسنده
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<BookDTO>> getBooksByAuthor(@PathVariable Long authorId) {
-        List<BookDTO> books = bookService.getBooksByAuthor(authorId);
+    public ResponseEntity<CursorPage<BookDTO>> getBooksByAuthor(
+            @PathVariable Long authorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByAuthorVersion(authorId);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        CursorPage<BookDTO> books = bookService.getBooksByAuthor(authorId, cursor, size);
+        return ResponseEntity.ok(books);
+    }
+
+    // GET /api/books/author/{authorId}?fields= - فیلدهای خواسته‌شده کتاب‌های یک نویسنده
+    @GetMapping(value = "/author/{authorId}", params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getBookFieldsByAuthor(
+            @PathVariable Long authorId,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ResourceVersion version = bookService.getBooksByAuthorVersion(authorId).withVariant(fields);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBookFields(fields, null, null, authorId, cursor, size));
+    }
+
+    // GET /api/books/query?category=FICTION,HISTORY&status=AVAILABLE&minPrice=&maxPrice=&authorId=
+    //     &publishedFrom=&publishedTo=&sort=PRICE&direction=DESC - جستجوی ترکیبی با یک کوئری صفحه‌بندی‌شده
+    @GetMapping("/query")
+    public ResponseEntity<CursorPage<BookDTO>> queryBooks(
+            @Valid BookQueryDTO query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<BookDTO> books = bookService.queryBooks(query, cursor, size);
         return ResponseEntity.ok(books);
     }
 
@@ -102,4 +340,14 @@ public class BookController {
         BookDTO book = bookService.returnBook(id);
         return ResponseEntity.ok(book);
     }
-}
\ No newline at end of file
+
+    // GET /api/books/{id}/loans - تاریخچه امانت و بازگشت کتاب از دفتر امانت
+    @GetMapping("/{id}/loans")
+    public ResponseEntity<CursorPage<BookLoanDTO>> getBookLoans(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<BookLoanDTO> loans = bookService.getBookLoans(id, cursor, size);
+        return ResponseEntity.ok(loans);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.ImportJobDTO;
+import com.example.bookstore.dto.ImportRowErrorDTO;
+import com.example.bookstore.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * درون‌ریزی ناهمگام فایل کاتالوگ (CSV با سطر عنوان)
+ * ستون‌ها: title, isbn, category و authorEmail (یا authorId)؛ اختیاری: status, price, pageCount,
+ * publicationDate, authorFirstName, authorLastName (برای ساخت نویسنده جدید)
+ */
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    // POST /api/imports - بارگذاری فایل و شروع کار درون‌ریزی در پس‌زمینه
+    @PostMapping
+    public ResponseEntity<ImportJobDTO> startImport(@RequestParam("file") MultipartFile file) {
+        ImportJobDTO job = importService.startImport(file);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    // GET /api/imports/{id} - وضعیت و پیشرفت کار
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable Long id) {
+        ImportJobDTO job = importService.getImportJob(id);
+        return ResponseEntity.ok(job);
+    }
+
+    // GET /api/imports/{id}/errors?cursor=&size= - گزارش ردیف‌های رد شده
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<CursorPage<ImportRowErrorDTO>> getImportErrors(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ImportRowErrorDTO> errors = importService.getImportErrors(id, cursor, size);
+        return ResponseEntity.ok(errors);
+    }
+
+    // POST /api/imports/{id}/resume - ادامه کار متوقف‌شده از آخرین تکه commit‌شده
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ImportJobDTO> resumeImport(@PathVariable Long id) {
+        ImportJobDTO job = importService.resumeImport(id);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+}
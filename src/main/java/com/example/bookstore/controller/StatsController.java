@@ -0,0 +1,82 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.AuthorStatsDTO;
+import com.example.bookstore.dto.BookStatsDTO;
+import com.example.bookstore.dto.CacheRegionStatsDTO;
+import com.example.bookstore.dto.InventoryStatsDTO;
+import com.example.bookstore.dto.KeyFilterStatsDTO;
+import com.example.bookstore.dto.LoanLedgerStatsDTO;
+import com.example.bookstore.dto.ReadModelStatsDTO;
+import com.example.bookstore.enums.BookStatsDimension;
+import com.example.bookstore.service.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller: آمار عملیاتی برای داشبوردها و تنظیم اندازه cacheها
+ */
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @Autowired
+    public StatsController(StatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    // GET /api/stats/cache - آمار hit/miss/eviction هر region از cache سطح دوم
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheRegionStatsDTO>> getCacheStatistics() {
+        List<CacheRegionStatsDTO> regions = statsService.getCacheStatistics();
+        return ResponseEntity.ok(regions);
+    }
+
+    // GET /api/stats/key-filters - SELECTهای صرفه‌جویی‌شده و نرخ خطای مثبت فیلترهای شابک و ایمیل
+    @GetMapping("/key-filters")
+    public ResponseEntity<List<KeyFilterStatsDTO>> getKeyFilterStatistics() {
+        List<KeyFilterStatsDTO> filters = statsService.getKeyFilterStatistics();
+        return ResponseEntity.ok(filters);
+    }
+
+    // GET /api/stats/inventory - تعداد کتاب‌ها به تفکیک وضعیت و دسته‌بندی از شمارنده‌های درون حافظه
+    @GetMapping("/inventory")
+    public ResponseEntity<InventoryStatsDTO> getInventory() {
+        InventoryStatsDTO inventory = statsService.getInventory();
+        return ResponseEntity.ok(inventory);
+    }
+
+    // GET /api/stats/read-model - نسل، تعداد ردیف‌ها و حجم حافظه مدل خواندنی (و برآورد برای یک میلیون کتاب)
+    @GetMapping("/read-model")
+    public ResponseEntity<ReadModelStatsDTO> getReadModelStatistics() {
+        ReadModelStatsDTO stats = statsService.getReadModelStatistics();
+        return ResponseEntity.ok(stats);
+    }
+
+    // GET /api/stats/loan-ledger - عمق صف، انتظار و رویدادهای کنارگذاشته مسیر درخواست و پیشرفت نویسنده دفتر امانت
+    @GetMapping("/loan-ledger")
+    public ResponseEntity<LoanLedgerStatsDTO> getLoanLedgerStatistics() {
+        LoanLedgerStatsDTO stats = statsService.getLoanLedgerStatistics();
+        return ResponseEntity.ok(stats);
+    }
+
+    // GET /api/stats/books?groupBy=CATEGORY,YEAR - تعداد، جمع/میانگین/کمینه/بیشینه قیمت و تعداد صفحات به ازای هر گروه
+    @GetMapping("/books")
+    public ResponseEntity<BookStatsDTO> getBookStatistics(
+            @RequestParam(required = false) List<BookStatsDimension> groupBy) {
+        BookStatsDTO stats = statsService.getBookStatistics(groupBy);
+        return ResponseEntity.ok(stats);
+    }
+
+    // GET /api/stats/authors - تعداد نویسندگان، بازه سنی و توزیع کتاب به ازای نویسنده
+    @GetMapping("/authors")
+    public ResponseEntity<AuthorStatsDTO> getAuthorStatistics() {
+        AuthorStatsDTO stats = statsService.getAuthorStatistics();
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -21,6 +21,9 @@ public class AuthorDTO {
 
     private Integer bookCount;
 
+    // نسخه optimistic locking؛ PATCH با همین مقدار بدون خواندن نویسنده اجرا می‌شود
+    private Long version;
+
     // Constructors
     public AuthorDTO() {}
 
@@ -48,6 +51,9 @@ public class AuthorDTO {
     public Integer getBookCount() { return bookCount; }
     public void setBookCount(Integer bookCount) { this.bookCount = bookCount; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getFullName() {
         return firstName + " " + lastName;
     }
@@ -0,0 +1,35 @@
+package com.example.bookstore.dto;
+
+/**
+ * یک ردیف جدول رتبه‌بندی نویسندگان
+ */
+public class AuthorRankDTO {
+
+    private int rank;
+    private Long authorId;
+    private String fullName;
+    private long count;
+
+    // Constructors
+    public AuthorRankDTO() {}
+
+    public AuthorRankDTO(int rank, Long authorId, String fullName, long count) {
+        this.rank = rank;
+        this.authorId = authorId;
+        this.fullName = fullName;
+        this.count = count;
+    }
+
+    // Getter and Setter methods
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,47 @@
+package com.example.bookstore.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * آمار کلی نویسندگان: تعداد، بازه سنی و توزیع کتاب به ازای نویسنده
+ */
+public class AuthorStatsDTO {
+
+    private long authors;
+    private long withBooks;
+    private long withoutBooks;
+    private long books;
+    private BigDecimal avgBooksPerAuthor;
+    private long maxBooksPerAuthor;
+    private Integer minAge;
+    private Integer maxAge;
+    private BigDecimal avgAge;
+
+    // Getter and Setter methods
+    public long getAuthors() { return authors; }
+    public void setAuthors(long authors) { this.authors = authors; }
+
+    public long getWithBooks() { return withBooks; }
+    public void setWithBooks(long withBooks) { this.withBooks = withBooks; }
+
+    public long getWithoutBooks() { return withoutBooks; }
+    public void setWithoutBooks(long withoutBooks) { this.withoutBooks = withoutBooks; }
+
+    public long getBooks() { return books; }
+    public void setBooks(long books) { this.books = books; }
+
+    public BigDecimal getAvgBooksPerAuthor() { return avgBooksPerAuthor; }
+    public void setAvgBooksPerAuthor(BigDecimal avgBooksPerAuthor) { this.avgBooksPerAuthor = avgBooksPerAuthor; }
+
+    public long getMaxBooksPerAuthor() { return maxBooksPerAuthor; }
+    public void setMaxBooksPerAuthor(long maxBooksPerAuthor) { this.maxBooksPerAuthor = maxBooksPerAuthor; }
+
+    public Integer getMinAge() { return minAge; }
+    public void setMinAge(Integer minAge) { this.minAge = minAge; }
+
+    public Integer getMaxAge() { return maxAge; }
+    public void setMaxAge(Integer maxAge) { this.maxAge = maxAge; }
+
+    public BigDecimal getAvgAge() { return avgAge; }
+    public void setAvgAge(BigDecimal avgAge) { this.avgAge = avgAge; }
+}
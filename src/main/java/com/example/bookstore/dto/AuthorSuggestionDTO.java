@@ -0,0 +1,25 @@
+package com.example.bookstore.dto;
+
+/**
+ * DTO سبک برای پیشنهاد خودکار نام نویسنده
+ */
+public class AuthorSuggestionDTO {
+
+    private Long id;
+    private String fullName;
+
+    // Constructors
+    public AuthorSuggestionDTO() {}
+
+    public AuthorSuggestionDTO(Long id, String fullName) {
+        this.id = id;
+        this.fullName = fullName;
+    }
+
+    // Getter and Setter methods
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+}
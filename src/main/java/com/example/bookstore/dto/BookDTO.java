@@ -39,6 +39,9 @@ public class BookDTO {
 
     private String authorName;
 
+    // نسخه optimistic locking؛ PATCH با همین مقدار بدون خواندن کتاب اجرا می‌شود
+    private Long version;
+
     // Constructors
     public BookDTO() {}
 
@@ -79,4 +82,7 @@ public class BookDTO {
 
     public String getAuthorName() { return authorName; }
     public void setAuthorName(String authorName) { this.authorName = authorName; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+
+import java.util.Map;
+
+/**
+ * شمارش facetهای کاتالوگ برای یک فیلتر
+ * نکته: شمارش هر بعد فیلتر همان بعد را نادیده می‌گیرد (مثلاً categories با فیلتر status و قیمت)
+ * تا UI تعداد گزینه‌های جایگزین را هم نشان دهد؛ total همه فیلترها را اعمال می‌کند
+ */
+public class BookFacetsDTO {
+
+    private long total;
+    private Map<BookCategory, Long> categories;
+    private Map<BookStatus, Long> statuses;
+    private Map<String, Long> priceRanges;
+
+    // ماتریس کامل دسته‌بندی × وضعیت، فقط با فیلتر قیمت
+    private Map<BookCategory, Map<BookStatus, Long>> categoryStatus;
+
+    // Getter and Setter methods
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Map<BookCategory, Long> getCategories() { return categories; }
+    public void setCategories(Map<BookCategory, Long> categories) { this.categories = categories; }
+
+    public Map<BookStatus, Long> getStatuses() { return statuses; }
+    public void setStatuses(Map<BookStatus, Long> statuses) { this.statuses = statuses; }
+
+    public Map<String, Long> getPriceRanges() { return priceRanges; }
+    public void setPriceRanges(Map<String, Long> priceRanges) { this.priceRanges = priceRanges; }
+
+    public Map<BookCategory, Map<BookStatus, Long>> getCategoryStatus() { return categoryStatus; }
+    public void setCategoryStatus(Map<BookCategory, Map<BookStatus, Long>> categoryStatus) { this.categoryStatus = categoryStatus; }
+}
@@ -0,0 +1,39 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.LoanAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * یک رویداد امانت یا بازگشت از دفتر امانت
+ */
+public class BookLoanDTO {
+
+    private Long id;
+    private Long bookId;
+    private LoanAction action;
+    private LocalDateTime occurredAt;
+
+    // Constructors
+    public BookLoanDTO() {}
+
+    public BookLoanDTO(Long id, Long bookId, LoanAction action, LocalDateTime occurredAt) {
+        this.id = id;
+        this.bookId = bookId;
+        this.action = action;
+        this.occurredAt = occurredAt;
+    }
+
+    // Getter and Setter methods
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public LoanAction getAction() { return action; }
+    public void setAction(LoanAction action) { this.action = action; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -0,0 +1,68 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookSortField;
+import com.example.bookstore.enums.BookStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.DecimalMin;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * پارامترهای جستجوی ترکیبی کتاب‌ها (GET /api/books/query)
+ * نکته: همه فیلترها اختیاری‌اند و با AND ترکیب می‌شوند؛ category و status چند مقدار می‌پذیرند (IN)
+ */
+public class BookQueryDTO {
+
+    // فیلترها
+    private List<BookCategory> category;
+    private List<BookStatus> status;
+    private Long authorId;
+
+    @DecimalMin(value = "0.0", message = "حداقل قیمت نمی‌تواند منفی باشد")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0.0", message = "حداکثر قیمت نمی‌تواند منفی باشد")
+    private BigDecimal maxPrice;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate publishedFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate publishedTo;
+
+    // مرتب‌سازی
+    private BookSortField sort = BookSortField.ID;
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    // Getter and Setter methods
+    public List<BookCategory> getCategory() { return category; }
+    public void setCategory(List<BookCategory> category) { this.category = category; }
+
+    public List<BookStatus> getStatus() { return status; }
+    public void setStatus(List<BookStatus> status) { this.status = status; }
+
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+    public LocalDate getPublishedFrom() { return publishedFrom; }
+    public void setPublishedFrom(LocalDate publishedFrom) { this.publishedFrom = publishedFrom; }
+
+    public LocalDate getPublishedTo() { return publishedTo; }
+    public void setPublishedTo(LocalDate publishedTo) { this.publishedTo = publishedTo; }
+
+    public BookSortField getSort() { return sort; }
+    public void setSort(BookSortField sort) { this.sort = sort; }
+
+    public Sort.Direction getDirection() { return direction; }
+    public void setDirection(Sort.Direction direction) { this.direction = direction; }
+}
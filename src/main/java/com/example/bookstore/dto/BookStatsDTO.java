@@ -0,0 +1,29 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.BookStatsDimension;
+
+import java.util.List;
+
+/**
+ * نتیجه آمار کتاب‌ها؛ بدون groupBy فقط یک ردیف برای کل جدول برمی‌گردد
+ */
+public class BookStatsDTO {
+
+    private List<BookStatsDimension> groupBy;
+    private List<BookStatsRowDTO> rows;
+
+    // Constructors
+    public BookStatsDTO() {}
+
+    public BookStatsDTO(List<BookStatsDimension> groupBy, List<BookStatsRowDTO> rows) {
+        this.groupBy = groupBy;
+        this.rows = rows;
+    }
+
+    // Getter and Setter methods
+    public List<BookStatsDimension> getGroupBy() { return groupBy; }
+    public void setGroupBy(List<BookStatsDimension> groupBy) { this.groupBy = groupBy; }
+
+    public List<BookStatsRowDTO> getRows() { return rows; }
+    public void setRows(List<BookStatsRowDTO> rows) { this.rows = rows; }
+}
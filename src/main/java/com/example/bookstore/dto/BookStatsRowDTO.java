@@ -0,0 +1,45 @@
+package com.example.bookstore.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * یک ردیف تجمیعی آمار کتاب‌ها: مقدار ابعاد گروه و معیارها
+ * نکته: معیارهای قیمت و تعداد صفحه فقط روی کتاب‌هایی با مقدار غیر null حساب می‌شوند (رفتار SUM/AVG در SQL)
+ */
+public class BookStatsRowDTO {
+
+    private Map<String, Object> group;
+    private long count;
+    private BigDecimal priceSum;
+    private BigDecimal priceAvg;
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+    private Long pageCountSum;
+    private BigDecimal pageCountAvg;
+
+    // Getter and Setter methods
+    public Map<String, Object> getGroup() { return group; }
+    public void setGroup(Map<String, Object> group) { this.group = group; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public BigDecimal getPriceSum() { return priceSum; }
+    public void setPriceSum(BigDecimal priceSum) { this.priceSum = priceSum; }
+
+    public BigDecimal getPriceAvg() { return priceAvg; }
+    public void setPriceAvg(BigDecimal priceAvg) { this.priceAvg = priceAvg; }
+
+    public BigDecimal getPriceMin() { return priceMin; }
+    public void setPriceMin(BigDecimal priceMin) { this.priceMin = priceMin; }
+
+    public BigDecimal getPriceMax() { return priceMax; }
+    public void setPriceMax(BigDecimal priceMax) { this.priceMax = priceMax; }
+
+    public Long getPageCountSum() { return pageCountSum; }
+    public void setPageCountSum(Long pageCountSum) { this.pageCountSum = pageCountSum; }
+
+    public BigDecimal getPageCountAvg() { return pageCountAvg; }
+    public void setPageCountAvg(BigDecimal pageCountAvg) { this.pageCountAvg = pageCountAvg; }
+}
@@ -0,0 +1,26 @@
+package com.example.bookstore.dto;
+
+/**
+ * نتیجه upsert یک کتاب بر اساس شابک
+ * نکته: status فقط برای کتاب تازه ایجادشده پر می‌شود؛ upsert وضعیت امانت کتاب موجود را نه می‌خواند و نه تغییر می‌دهد
+ */
+public class BookUpsertResultDTO {
+
+    private boolean created;
+    private BookDTO book;
+
+    // Constructors
+    public BookUpsertResultDTO() {}
+
+    public BookUpsertResultDTO(boolean created, BookDTO book) {
+        this.created = created;
+        this.book = book;
+    }
+
+    // Getter and Setter methods
+    public boolean isCreated() { return created; }
+    public void setCreated(boolean created) { this.created = created; }
+
+    public BookDTO getBook() { return book; }
+    public void setBook(BookDTO book) { this.book = book; }
+}
@@ -0,0 +1,41 @@
+package com.example.bookstore.dto;
+
+/**
+ * آمار یک region از cache سطح دوم Hibernate
+ */
+public class CacheRegionStatsDTO {
+
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private long evictions;
+
+    // Constructors
+    public CacheRegionStatsDTO() {}
+
+    public CacheRegionStatsDTO(String region) {
+        this.region = region;
+    }
+
+    // Getter and Setter methods
+    public String getRegion() { return region; }
+    public void setRegion(String region) { this.region = region; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getPuts() { return puts; }
+    public void setPuts(long puts) { this.puts = puts; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.service.PageCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * صفحه‌بندی keyset: هر صفحه یک cursor مات برای صفحه بعد برمی‌گرداند
+ * نکته: هزینه صفحه N با صفحه اول برابر است چون از OFFSET استفاده نمی‌شود
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private int size;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor, int size) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    /**
+     * ردیف‌ها باید با size + 1 خوانده شده باشند؛ ردیف اضافه فقط نشان می‌دهد صفحه بعدی وجود دارد
+     */
+    public static <T> CursorPage<T> slice(List<T> rows, int size, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, size);
+        }
+        List<T> page = rows.subList(0, size);
+        return new CursorPage<>(page, cursorOf.apply(page.get(size - 1)).encode(), size);
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new CursorPage<>(mapped, nextCursor, size);
+    }
+
+    // Getter and Setter methods
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,35 @@
+package com.example.bookstore.dto;
+
+/**
+ * گزارش خطای یک ردیف فایل درون‌ریزی
+ */
+public class ImportRowErrorDTO {
+
+    private Long id;
+    private long rowNumber;
+    private String isbn;
+    private String message;
+
+    // Constructors
+    public ImportRowErrorDTO() {}
+
+    public ImportRowErrorDTO(Long id, long rowNumber, String isbn, String message) {
+        this.id = id;
+        this.rowNumber = rowNumber;
+        this.isbn = isbn;
+        this.message = message;
+    }
+
+    // Getter and Setter methods
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public long getRowNumber() { return rowNumber; }
+    public void setRowNumber(long rowNumber) { this.rowNumber = rowNumber; }
+
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,37 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * موجودی لحظه‌ای کتاب‌ها به تفکیک وضعیت و دسته‌بندی
+ * نکته: از شمارنده‌های درون حافظه خوانده می‌شود؛ reconcilePending یعنی تغییری با حالت قبلی نامعلوم
+ * (upsert یا PATCH) رسیده و اعداد تا آشتی بعدی با دیتابیس ممکن است کمی جابه‌جا باشند
+ */
+public class InventoryStatsDTO {
+
+    private long total;
+    private Map<BookStatus, Long> statuses;
+    private Map<BookCategory, Map<BookStatus, Long>> categories;
+    private LocalDateTime reconciledAt;
+    private boolean reconcilePending;
+
+    // Getter and Setter methods
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Map<BookStatus, Long> getStatuses() { return statuses; }
+    public void setStatuses(Map<BookStatus, Long> statuses) { this.statuses = statuses; }
+
+    public Map<BookCategory, Map<BookStatus, Long>> getCategories() { return categories; }
+    public void setCategories(Map<BookCategory, Map<BookStatus, Long>> categories) { this.categories = categories; }
+
+    public LocalDateTime getReconciledAt() { return reconciledAt; }
+    public void setReconciledAt(LocalDateTime reconciledAt) { this.reconciledAt = reconciledAt; }
+
+    public boolean isReconcilePending() { return reconcilePending; }
+    public void setReconcilePending(boolean reconcilePending) { this.reconcilePending = reconcilePending; }
+}
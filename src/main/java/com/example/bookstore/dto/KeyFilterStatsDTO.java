@@ -0,0 +1,64 @@
+package com.example.bookstore.dto;
+
+/**
+ * آمار یک فیلتر وجود کلید (Bloom filter شابک یا ایمیل)
+ */
+public class KeyFilterStatsDTO {
+
+    private String name;
+    private boolean ready;
+    private long entries;
+    private long capacity;
+    private long bitSize;
+    private int hashFunctions;
+    private long lookups;
+    private long selectsSaved;
+    private long falsePositives;
+    private double expectedFalsePositiveRate;
+
+    // Constructors
+    public KeyFilterStatsDTO() {}
+
+    public KeyFilterStatsDTO(String name) {
+        this.name = name;
+    }
+
+    // Getter and Setter methods
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    public long getEntries() { return entries; }
+    public void setEntries(long entries) { this.entries = entries; }
+
+    public long getCapacity() { return capacity; }
+    public void setCapacity(long capacity) { this.capacity = capacity; }
+
+    public long getBitSize() { return bitSize; }
+    public void setBitSize(long bitSize) { this.bitSize = bitSize; }
+
+    public int getHashFunctions() { return hashFunctions; }
+    public void setHashFunctions(int hashFunctions) { this.hashFunctions = hashFunctions; }
+
+    public long getLookups() { return lookups; }
+    public void setLookups(long lookups) { this.lookups = lookups; }
+
+    public long getSelectsSaved() { return selectsSaved; }
+    public void setSelectsSaved(long selectsSaved) { this.selectsSaved = selectsSaved; }
+
+    public long getFalsePositives() { return falsePositives; }
+    public void setFalsePositives(long falsePositives) { this.falsePositives = falsePositives; }
+
+    public double getExpectedFalsePositiveRate() { return expectedFalsePositiveRate; }
+    public void setExpectedFalsePositiveRate(double expectedFalsePositiveRate) {
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+    }
+
+    // نرخ مشاهده‌شده: از کلیدهای جدید چه سهمی به اشتباه «شاید هست» شده و SELECT اضافه خورده است
+    public double getObservedFalsePositiveRate() {
+        long newKeys = selectsSaved + falsePositives;
+        return newKeys == 0 ? 0.0 : (double) falsePositives / newKeys;
+    }
+}
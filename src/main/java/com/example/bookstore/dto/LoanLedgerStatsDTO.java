@@ -0,0 +1,72 @@
+package com.example.bookstore.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * وضعیت نویسنده پس‌زمینه دفتر امانت و فشار برگشتی روی مسیر درخواست
+ * نکته: producerWaits یعنی حلقه پر بوده و درخواست منتظر جا مانده؛ dropped یعنی انتظار به timeout رسیده و رویداد ثبت نشده
+ */
+public class LoanLedgerStatsDTO {
+
+    private int capacity;
+    private int batchSize;
+    private int depth;
+    private int maxDepth;
+    private long enqueued;
+    private long written;
+    private long batches;
+    private long producerWaits;
+    private long producerWaitMillis;
+    private long dropped;
+    private long failedFlushes;
+    private long replayed;
+    private long journalBytes;
+    private LocalDateTime lastFlushAt;
+    private String lastError;
+
+    // Getter and Setter methods
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    public long getEnqueued() { return enqueued; }
+    public void setEnqueued(long enqueued) { this.enqueued = enqueued; }
+
+    public long getWritten() { return written; }
+    public void setWritten(long written) { this.written = written; }
+
+    public long getBatches() { return batches; }
+    public void setBatches(long batches) { this.batches = batches; }
+
+    public long getProducerWaits() { return producerWaits; }
+    public void setProducerWaits(long producerWaits) { this.producerWaits = producerWaits; }
+
+    public long getProducerWaitMillis() { return producerWaitMillis; }
+    public void setProducerWaitMillis(long producerWaitMillis) { this.producerWaitMillis = producerWaitMillis; }
+
+    public long getDropped() { return dropped; }
+    public void setDropped(long dropped) { this.dropped = dropped; }
+
+    public long getFailedFlushes() { return failedFlushes; }
+    public void setFailedFlushes(long failedFlushes) { this.failedFlushes = failedFlushes; }
+
+    public long getReplayed() { return replayed; }
+    public void setReplayed(long replayed) { this.replayed = replayed; }
+
+    public long getJournalBytes() { return journalBytes; }
+    public void setJournalBytes(long journalBytes) { this.journalBytes = journalBytes; }
+
+    public LocalDateTime getLastFlushAt() { return lastFlushAt; }
+    public void setLastFlushAt(LocalDateTime lastFlushAt) { this.lastFlushAt = lastFlushAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
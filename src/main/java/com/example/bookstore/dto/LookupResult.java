@@ -0,0 +1,46 @@
+package com.example.bookstore.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * نتیجه دریافت چندتایی بر اساس شناسه: ردیف‌ها به ترتیب درخواست و شناسه‌هایی که پیدا نشدند
+ * نکته: نبودن یک شناسه کل درخواست را خراب نمی‌کند و فقط در missingIds می‌آید
+ */
+public class LookupResult<T> {
+
+    private List<T> items;
+    private List<Long> missingIds;
+
+    public LookupResult() {}
+
+    public LookupResult(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    /**
+     * چیدن ردیف‌های پیداشده به ترتیب شناسه‌های درخواست
+     */
+    public static <T> LookupResult<T> inRequestOrder(Collection<Long> ids, Map<Long, T> found) {
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            T item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new LookupResult<>(items, missingIds);
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public List<Long> getMissingIds() { return missingIds; }
+    public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
@@ -0,0 +1,71 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.PriceRounding;
+
+import javax.validation.constraints.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * درخواست تغییر گروهی قیمت: فیلتر کتاب‌ها، مقدار تغییر (درصدی یا مطلق) و قاعده گرد کردن
+ * نکته: همه فیلترها اختیاری‌اند و با AND ترکیب می‌شوند؛ کتاب‌های بدون قیمت تغییر نمی‌کنند
+ */
+public class PriceAdjustmentDTO {
+
+    // فیلترها
+    private BookCategory category;
+    private Long authorId;
+    private LocalDate publishedFrom;
+    private LocalDate publishedTo;
+
+    @DecimalMin(value = "0.0", message = "حداقل قیمت نمی‌تواند منفی باشد")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0.0", message = "حداکثر قیمت نمی‌تواند منفی باشد")
+    private BigDecimal maxPrice;
+
+    // تغییر: دقیقاً یکی از percent یا amount
+    @DecimalMin(value = "-100.0", message = "کاهش قیمت نمی‌تواند بیشتر از ۱۰۰ درصد باشد")
+    private BigDecimal percent;
+
+    private BigDecimal amount;
+
+    // گرد کردن
+    private PriceRounding rounding = PriceRounding.NEAREST;
+
+    @Min(value = 0, message = "تعداد رقم اعشار نمی‌تواند منفی باشد")
+    @Max(value = 2, message = "قیمت حداکثر ۲ رقم اعشار دارد")
+    private int scale = 2;
+
+    // Getter and Setter methods
+    public BookCategory getCategory() { return category; }
+    public void setCategory(BookCategory category) { this.category = category; }
+
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+
+    public LocalDate getPublishedFrom() { return publishedFrom; }
+    public void setPublishedFrom(LocalDate publishedFrom) { this.publishedFrom = publishedFrom; }
+
+    public LocalDate getPublishedTo() { return publishedTo; }
+    public void setPublishedTo(LocalDate publishedTo) { this.publishedTo = publishedTo; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+    public BigDecimal getPercent() { return percent; }
+    public void setPercent(BigDecimal percent) { this.percent = percent; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public PriceRounding getRounding() { return rounding; }
+    public void setRounding(PriceRounding rounding) { this.rounding = rounding; }
+
+    public int getScale() { return scale; }
+    public void setScale(int scale) { this.scale = scale; }
+}
@@ -0,0 +1,25 @@
+package com.example.bookstore.dto;
+
+/**
+ * نتیجه تغییر گروهی قیمت
+ */
+public class PriceAdjustmentResultDTO {
+
+    private long affected;
+    private int chunks;
+
+    // Constructors
+    public PriceAdjustmentResultDTO() {}
+
+    public PriceAdjustmentResultDTO(long affected, int chunks) {
+        this.affected = affected;
+        this.chunks = chunks;
+    }
+
+    // Getter and Setter methods
+    public long getAffected() { return affected; }
+    public void setAffected(long affected) { this.affected = affected; }
+
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+}
@@ -0,0 +1,60 @@
+package com.example.bookstore.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * وضعیت و حجم حافظه مدل خواندنی درون‌حافظه کاتالوگ
+ * نکته: bytesPerMillionBooks برون‌یابی ستون‌ها و عنوان‌ها با میانگین فعلی است؛ سربار آرایه‌ها و نویسندگان جدا گزارش می‌شود
+ */
+public class ReadModelStatsDTO {
+
+    private boolean enabled;
+    private boolean ready;
+    private long generation;
+    private LocalDateTime publishedAt;
+    private int books;
+    private int authors;
+    private long columnBytes;
+    private long titleBytes;
+    private long authorBytes;
+    private long totalBytes;
+    private long bytesPerBook;
+    private long bytesPerMillionBooks;
+
+    // Getter and Setter methods
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    public long getGeneration() { return generation; }
+    public void setGeneration(long generation) { this.generation = generation; }
+
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+
+    public int getBooks() { return books; }
+    public void setBooks(int books) { this.books = books; }
+
+    public int getAuthors() { return authors; }
+    public void setAuthors(int authors) { this.authors = authors; }
+
+    public long getColumnBytes() { return columnBytes; }
+    public void setColumnBytes(long columnBytes) { this.columnBytes = columnBytes; }
+
+    public long getTitleBytes() { return titleBytes; }
+    public void setTitleBytes(long titleBytes) { this.titleBytes = titleBytes; }
+
+    public long getAuthorBytes() { return authorBytes; }
+    public void setAuthorBytes(long authorBytes) { this.authorBytes = authorBytes; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public long getBytesPerBook() { return bytesPerBook; }
+    public void setBytesPerBook(long bytesPerBook) { this.bytesPerBook = bytesPerBook; }
+
+    public long getBytesPerMillionBooks() { return bytesPerMillionBooks; }
+    public void setBytesPerMillionBooks(long bytesPerMillionBooks) { this.bytesPerMillionBooks = bytesPerMillionBooks; }
+}
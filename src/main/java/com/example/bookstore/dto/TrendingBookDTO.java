@@ -0,0 +1,37 @@
+package com.example.bookstore.dto;
+
+/**
+ * یک کتاب پرامانت؛ borrows تخمین Count-Min است و حداکثر به اندازه errorBound پنجره بیشتر از مقدار واقعی است
+ */
+public class TrendingBookDTO {
+
+    private int rank;
+    private Long bookId;
+    private String title;
+    private String authorName;
+    private long borrows;
+
+    // Constructors
+    public TrendingBookDTO() {}
+
+    public TrendingBookDTO(Long bookId, long borrows) {
+        this.bookId = bookId;
+        this.borrows = borrows;
+    }
+
+    // Getter and Setter methods
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthorName() { return authorName; }
+    public void setAuthorName(String authorName) { this.authorName = authorName; }
+
+    public long getBorrows() { return borrows; }
+    public void setBorrows(long borrows) { this.borrows = borrows; }
+}
@@ -0,0 +1,39 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.enums.TrendingWindow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * کتاب‌های پرامانت یک پنجره زمانی به همراه کران خطای تخمین
+ * نکته: هر عدد borrows با احتمال حداقل confidence حداکثر errorBound بیشتر از تعداد واقعی است و هرگز کمتر نیست
+ */
+public class TrendingBooksDTO {
+
+    private TrendingWindow window;
+    private LocalDateTime since;
+    private long totalBorrows;
+    private long errorBound;
+    private double confidence;
+    private List<TrendingBookDTO> books;
+
+    // Getter and Setter methods
+    public TrendingWindow getWindow() { return window; }
+    public void setWindow(TrendingWindow window) { this.window = window; }
+
+    public LocalDateTime getSince() { return since; }
+    public void setSince(LocalDateTime since) { this.since = since; }
+
+    public long getTotalBorrows() { return totalBorrows; }
+    public void setTotalBorrows(long totalBorrows) { this.totalBorrows = totalBorrows; }
+
+    public long getErrorBound() { return errorBound; }
+    public void setErrorBound(long errorBound) { this.errorBound = errorBound; }
+
+    public double getConfidence() { return confidence; }
+    public void setConfidence(double confidence) { this.confidence = confidence; }
+
+    public List<TrendingBookDTO> getBooks() { return books; }
+    public void setBooks(List<TrendingBookDTO> books) { this.books = books; }
+}
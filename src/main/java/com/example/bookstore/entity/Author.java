@@ -1,5 +1,9 @@
 package com.example.bookstore.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.util.ArrayList;
@@ -10,9 +14,20 @@ import java.util.List;
  * نکته: هر Author یک object از این کلاس خواهد بود
  */
 @Entity
-@Table(name = "authors")
+// UPDATE فقط ستون‌های تغییرکرده را می‌نویسد (مثلاً PATCH ایمیل فقط ستون email)
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "authors", indexes = {
+        @Index(name = "idx_authors_updated_at", columnList = "updated_at")
+}, uniqueConstraints = {
+        // نام ثابت تا خطای تکراری دیتابیس به پیام مشخص 409 نگاشت شود
+        @UniqueConstraint(name = Author.EMAIL_CONSTRAINT, columnNames = "email")
+})
 public class Author extends BaseEntity {
 
+    public static final String EMAIL_CONSTRAINT = "uk_authors_email";
+
     // instance variables با validation annotations
     @NotBlank(message = "نام نویسنده نمی‌تواند خالی باشد")
     @Size(min = 2, max = 100, message = "نام نویسنده باید بین ۲ تا ۱۰۰ کاراکتر باشد")
@@ -25,7 +40,7 @@ public class Author extends BaseEntity {
     private String lastName;
 
     @Email(message = "ایمیل باید معتبر باشد")
-    @Column(name = "email", unique = true)
+    @Column(name = "email")
     private String email;
 
     @Min(value = 0, message = "سن نمی‌تواند منفی باشد")
@@ -35,6 +50,7 @@ public class Author extends BaseEntity {
 
     // رابطه One-to-Many با Book
     // List interface: polymorphism - می‌تواند ArrayList یا LinkedList باشد
+    // بدون cache سطح دوم: سمت معکوس در ایجاد/جابجایی/حذف کتاب و نوشتن‌های JDBC نگهداری نمی‌شود و کهنه می‌ماند
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Book> books = new ArrayList<>();
 
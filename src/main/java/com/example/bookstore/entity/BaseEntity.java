@@ -1,5 +1,9 @@
 package com.example.bookstore.entity;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
@@ -12,19 +16,34 @@ public abstract class BaseEntity {
 
     // انواع متغیرها در جاوا:
     // instance variables (non-static) - هر شیء کپی خودش را دارد
+    // شناسه از sequence هر entity (روی MySQL جدول book_seq/author_seq) به صورت بلوک‌های ۵۰تایی pooled-lo
+    // برخلاف IDENTITY شناسه پیش از INSERT معلوم است و Hibernate می‌تواند INSERTها را batch کند
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_sequence")
+    @GenericGenerator(name = "pooled_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.CONFIG_PREFER_SEQUENCE_PER_ENTITY, value = "true"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_BLOCK_SIZE),
+                    @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+            })
     protected Long id;  // protected: در کلاس و زیرکلاس‌ها قابل دسترسی
 
     // class variables (static) - بین همه اشیاء مشترک است
     private static final String CREATOR = "BOOKSTORE_APP"; // final: مقدار ثابت
 
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // optimistic locking: هر UPDATE نسخه را بررسی و یکی زیاد می‌کند؛ نویسنده همزمان خطای conflict می‌گیرد
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // متدهای getter و setter
     public Long getId() {
         return id;
@@ -42,6 +61,10 @@ public abstract class BaseEntity {
         return updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public static String getCreator() {
         return CREATOR;
     }
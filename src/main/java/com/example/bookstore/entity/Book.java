@@ -3,6 +3,10 @@ package com.example.bookstore.entity;
 import com.example.bookstore.enums.BookStatus;
 import com.example.bookstore.enums.BookCategory;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.math.BigDecimal;
@@ -13,9 +17,34 @@ import java.time.LocalDate;
  * نکته: تمام فیلدها و متدهای BaseEntity در Book موجود است
  */
 @Entity
-@Table(name = "books")
+// UPDATE فقط ستون‌های تغییرکرده را می‌نویسد (مثلاً PATCH قیمت فقط ستون price)
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "books", indexes = {
+        // InnoDB کلید اصلی را به انتهای هر index اضافه می‌کند، پس (category, id) برای keyset کافی است
+        @Index(name = "idx_books_category", columnList = "category"),
+        @Index(name = "idx_books_status", columnList = "status"),
+        // JOIN و GROUP BY شمارش کتاب‌های هر نویسنده از پیشوند این index استفاده می‌کند؛
+        // فیلتر نویسنده همراه بازه یا مرتب‌سازی تاریخ انتشار در /query هم از کل آن
+        @Index(name = "idx_books_author_publication", columnList = "author_id, publication_date"),
+        // ترکیب‌های رایج /query: دسته‌بندی یا وضعیت همراه بازه/مرتب‌سازی قیمت
+        @Index(name = "idx_books_category_price", columnList = "category, price"),
+        @Index(name = "idx_books_status_price", columnList = "status, price"),
+        // بازه یا مرتب‌سازی تنها روی یک ستون؛ keyset روی (ستون، id) از PK انتهای index استفاده می‌کند
+        @Index(name = "idx_books_price", columnList = "price"),
+        @Index(name = "idx_books_publication_date", columnList = "publication_date"),
+        @Index(name = "idx_books_title", columnList = "title"),
+        // MAX(updated_at) برای ETag فهرست‌ها فقط انتهای index را می‌خواند
+        @Index(name = "idx_books_updated_at", columnList = "updated_at")
+}, uniqueConstraints = {
+        // کلید upsert بر اساس شابک؛ نام ثابت برای نگاشت خطای تکراری به 409
+        @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn")
+})
 public class Book extends BaseEntity {
 
+    public static final String ISBN_CONSTRAINT = "uk_books_isbn";
+
     @NotBlank(message = "عنوان کتاب نمی‌تواند خالی باشد")
     @Size(min = 1, max = 255, message = "عنوان کتاب باید بین ۱ تا ۲۵۵ کاراکتر باشد")
     @Column(name = "title", nullable = false)
@@ -23,7 +52,7 @@ public class Book extends BaseEntity {
 
     @NotBlank(message = "شابک نمی‌تواند خالی باشد")
     @Pattern(regexp = "\\d{13}", message = "شابک باید ۱۳ رقم باشد")
-    @Column(name = "isbn", unique = true, nullable = false, length = 13)
+    @Column(name = "isbn", nullable = false, length = 13)
     private String isbn;
 
     @NotNull(message = "دسته‌بندی کتاب باید مشخص شود")
@@ -0,0 +1,49 @@
+package com.example.bookstore.entity;
+
+import com.example.bookstore.enums.LoanAction;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * یک ردیف دفتر امانت (فقط افزودنی)؛ با JDBC دسته‌ای نوشته می‌شود و هرگز به‌روزرسانی نمی‌شود
+ * نکته: book_id کلید خارجی ندارد تا تاریخچه کتاب حذف‌شده هم برای ممیزی بماند
+ */
+@Entity
+@Table(name = "book_loans", indexes = {
+        @Index(name = "idx_book_loans_book", columnList = "book_id, id")
+})
+public class BookLoan extends BaseEntity {
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 16)
+    private LoanAction action;
+
+    // زمان رویداد در مسیر درخواست، نه زمان نوشتن در دیتابیس
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public BookLoan() {
+    }
+
+    @Override
+    public String getDisplayName() {
+        return action + " کتاب " + bookId + " در " + occurredAt;
+    }
+
+    // Getter methods
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public LoanAction getAction() {
+        return action;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bookstore.entity;
+
+import com.example.bookstore.enums.ImportJobStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * یک کار درون‌ریزی فایل کاتالوگ
+ * نکته: committedRows در همان تراکنشی زیاد می‌شود که ردیف‌های هر تکه نوشته می‌شوند،
+ * پس ادامه کار دقیقاً از بعد از آخرین تکه commit‌شده شروع می‌شود
+ */
+@Entity
+@Table(name = "import_jobs")
+public class ImportJob extends BaseEntity {
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ImportJobStatus status = ImportJobStatus.PENDING;
+
+    // تعداد ردیف‌های داده (بدون سطر عنوان) که پردازش و commit شده‌اند
+    @Column(name = "committed_rows", nullable = false)
+    private long committedRows;
+
+    @Column(name = "imported_rows", nullable = false)
+    private long importedRows;
+
+    @Column(name = "failed_rows", nullable = false)
+    private long failedRows;
+
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public ImportJob() {
+    }
+
+    public ImportJob(String fileName) {
+        this.fileName = fileName;
+    }
+
+    // ثبت نتیجه یک تکه commit‌شده
+    public void recordChunk(long lastRow, int imported, int failed) {
+        this.committedRows = lastRow;
+        this.importedRows += imported;
+        this.failedRows += failed;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "درون‌ریزی: " + fileName + " (" + status + ")";
+    }
+
+    // Getter and Setter methods
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public long getCommittedRows() {
+        return committedRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
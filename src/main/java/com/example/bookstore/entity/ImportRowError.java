@@ -0,0 +1,58 @@
+package com.example.bookstore.entity;
+
+import javax.persistence.*;
+
+/**
+ * خطای یک ردیف فایل درون‌ریزی؛ ردیف خطادار نادیده گرفته می‌شود و بقیه فایل ادامه پیدا می‌کند
+ */
+@Entity
+@Table(name = "import_row_errors", indexes = {
+        @Index(name = "idx_import_row_errors_job", columnList = "job_id, id")
+})
+public class ImportRowError extends BaseEntity {
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // شماره ردیف داده در فایل (۱ = اولین ردیف بعد از سطر عنوان)
+    @Column(name = "row_number", nullable = false)
+    private long rowNumber;
+
+    @Column(name = "isbn", length = 64)
+    private String isbn;
+
+    @Column(name = "message", nullable = false, length = 1000)
+    private String message;
+
+    public ImportRowError() {
+    }
+
+    public ImportRowError(Long jobId, long rowNumber, String isbn, String message) {
+        this.jobId = jobId;
+        this.rowNumber = rowNumber;
+        this.isbn = isbn;
+        this.message = message;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "خطای ردیف " + rowNumber + ": " + message;
+    }
+
+    // Getter methods
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
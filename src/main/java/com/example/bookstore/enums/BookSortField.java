@@ -0,0 +1,50 @@
+package com.example.bookstore.enums;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * ستون‌های مجاز مرتب‌سازی در جستجوی ترکیبی کتاب‌ها
+ * نکته: ترتیب همیشه (ستون، id) است تا keyset یکتا باشد؛ price و publicationDate ممکن است null باشند
+ */
+public enum BookSortField {
+    ID("id", false),
+    TITLE("title", false),
+    PRICE("price", true),
+    PUBLICATION_DATE("publicationDate", true);
+
+    private final String property;
+    private final boolean nullable;
+
+    BookSortField(String property, boolean nullable) {
+        this.property = property;
+        this.nullable = nullable;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * مقدار ستون از روی متن cursor؛ "null" فقط برای ستون‌های nullable معنا دارد
+     */
+    public Comparable<?> parse(String value) {
+        if (nullable && "null".equals(value)) {
+            return null;
+        }
+        switch (this) {
+            case ID:
+                return Long.valueOf(value);
+            case PRICE:
+                return new BigDecimal(value);
+            case PUBLICATION_DATE:
+                return LocalDate.parse(value);
+            default:
+                return value;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.bookstore.enums;
+
+/**
+ * ابعاد مجاز GROUP BY در آمار کتاب‌ها
+ * نکته: AUTHOR بر اساس id نویسنده گروه می‌کند و نام را هم برمی‌گرداند؛ YEAR سال انتشار است و کتاب بدون تاریخ در گروه null می‌افتد
+ */
+public enum BookStatsDimension {
+    CATEGORY,
+    STATUS,
+    AUTHOR,
+    YEAR
+}
@@ -0,0 +1,25 @@
+package com.example.bookstore.enums;
+
+/**
+ * قالب‌های خروجی گرفتن از کاتالوگ
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),   // هر خط یک شیء JSON
+    CSV("text/csv", "csv");                     // جدول ساده با سطر عنوان
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.enums;
+
+/**
+ * وضعیت یک کار درون‌ریزی کاتالوگ
+ */
+public enum ImportJobStatus {
+    PENDING,        // در صف اجرا
+    RUNNING,        // در حال خواندن فایل و نوشتن تکه‌ها
+    COMPLETED,      // کل فایل پردازش شد (ممکن است برخی ردیف‌ها خطا داشته باشند)
+    FAILED;         // متوقف شد؛ از آخرین تکه commit‌شده قابل ادامه است
+
+    public boolean isResumable() {
+        return this == FAILED;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bookstore.enums;
+
+/**
+ * نوع رویداد دفتر امانت
+ */
+public enum LoanAction {
+    BORROW,
+    RETURN
+}
@@ -0,0 +1,26 @@
+package com.example.bookstore.enums;
+
+/**
+ * قاعده گرد کردن قیمت جدید در تغییر گروهی قیمت‌ها
+ * نکته: هر قاعده یک عبارت SQL است تا گرد کردن داخل همان UPDATE انجام شود
+ */
+public enum PriceRounding {
+    NEAREST,    // نزدیک‌ترین مقدار (نیمه به بالا)
+    UP,         // همیشه رو به بالا
+    DOWN;       // همیشه رو به پایین
+
+    /**
+     * عبارت HQL گرد کردن expression تا scale رقم اعشار
+     */
+    public String apply(String expression, int scale) {
+        long unit = (long) Math.pow(10, scale);
+        switch (this) {
+            case UP:
+                return "(ceiling((" + expression + ") * " + unit + ") / " + unit + ")";
+            case DOWN:
+                return "(floor((" + expression + ") * " + unit + ") / " + unit + ")";
+            default:
+                return "round(" + expression + ", " + scale + ")";
+        }
+    }
+}
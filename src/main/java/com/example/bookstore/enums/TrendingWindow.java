@@ -0,0 +1,39 @@
+package com.example.bookstore.enums;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * پنجره‌های زمانی کتاب‌های پرامانت؛ هر پنجره حلقه‌ای از بازه‌های ثابت است
+ * نکته: بازه جاری هم شمرده می‌شود، پس «یک ساعت اخیر» در عمل بین ۵۵ تا ۶۰ دقیقه اخیر است
+ */
+public enum TrendingWindow {
+    HOUR(Duration.ofMinutes(5), 12),
+    DAY(Duration.ofHours(1), 24),
+    WEEK(Duration.ofDays(1), 7);
+
+    private final Duration slot;
+    private final int slots;
+
+    TrendingWindow(Duration slot, int slots) {
+        this.slot = slot;
+        this.slots = slots;
+    }
+
+    public long getSlotMillis() {
+        return slot.toMillis();
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    // نام پنجره بدون حساسیت به حروف بزرگ و کوچک (hour، day، week)
+    public static TrendingWindow of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("پنجره زمانی نامعتبر است: " + name + " (hour، day یا week)");
+        }
+    }
+}
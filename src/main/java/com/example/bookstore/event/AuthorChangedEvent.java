@@ -0,0 +1,70 @@
+package com.example.bookstore.event;
+
+import com.example.bookstore.dto.AuthorDTO;
+
+/**
+ * رویداد تغییر نویسنده: بعد از commit تراکنش به listenerها می‌رسد
+ * نکته: previous برای نویسنده جدید و current برای نویسنده حذف‌شده null است
+ * PATCH با نسخه حالت قبلی را نمی‌خواند؛ در آن صورت previous نامعلوم (null) است ولی رویداد «ایجاد» نیست
+ */
+public class AuthorChangedEvent {
+
+    private final AuthorDTO previous;
+    private final AuthorDTO current;
+    private final boolean previousKnown;
+
+    public AuthorChangedEvent(AuthorDTO previous, AuthorDTO current) {
+        this(previous, current, true);
+    }
+
+    private AuthorChangedEvent(AuthorDTO previous, AuthorDTO current, boolean previousKnown) {
+        this.previous = previous;
+        this.current = current;
+        this.previousKnown = previousKnown;
+    }
+
+    public static AuthorChangedEvent created(AuthorDTO current) {
+        return new AuthorChangedEvent(null, current);
+    }
+
+    public static AuthorChangedEvent deleted(AuthorDTO previous) {
+        return new AuthorChangedEvent(previous, null);
+    }
+
+    // به‌روزرسانی درجای یک ردیف موجود با یک UPDATE، بدون خواندن حالت قبلی
+    public static AuthorChangedEvent updatedInPlace(AuthorDTO current) {
+        return new AuthorChangedEvent(null, current, false);
+    }
+
+    public Long getAuthorId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    public AuthorDTO getPrevious() {
+        return previous;
+    }
+
+    public AuthorDTO getCurrent() {
+        return current;
+    }
+
+    public boolean isPreviousKnown() {
+        return previousKnown;
+    }
+
+    public boolean isCreated() {
+        return previous == null && previousKnown;
+    }
+
+    public boolean isDeleted() {
+        return current == null;
+    }
+
+    // آیا نام نمایشی نویسنده تغییر کرده است (برای index‌هایی که نام نویسنده را نگه می‌دارند)؛ بدون previous همیشه true
+    public boolean isNameChanged() {
+        if (previous == null || current == null) {
+            return true;
+        }
+        return !previous.getFullName().equals(current.getFullName());
+    }
+}
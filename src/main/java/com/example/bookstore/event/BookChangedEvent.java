@@ -0,0 +1,62 @@
+package com.example.bookstore.event;
+
+import com.example.bookstore.dto.BookDTO;
+
+/**
+ * رویداد تغییر کتاب: بعد از commit تراکنش به listenerها (مثل index جستجو) می‌رسد
+ * نکته: previous برای کتاب جدید و current برای کتاب حذف‌شده null است
+ * upsert و PATCH با نسخه حالت قبلی ردیف را نمی‌خوانند؛ در آن صورت previous نامعلوم (null) است ولی رویداد «ایجاد» نیست
+ */
+public class BookChangedEvent {
+
+    private final BookDTO previous;
+    private final BookDTO current;
+    private final boolean previousKnown;
+
+    public BookChangedEvent(BookDTO previous, BookDTO current) {
+        this(previous, current, true);
+    }
+
+    private BookChangedEvent(BookDTO previous, BookDTO current, boolean previousKnown) {
+        this.previous = previous;
+        this.current = current;
+        this.previousKnown = previousKnown;
+    }
+
+    public static BookChangedEvent created(BookDTO current) {
+        return new BookChangedEvent(null, current);
+    }
+
+    public static BookChangedEvent deleted(BookDTO previous) {
+        return new BookChangedEvent(previous, null);
+    }
+
+    // به‌روزرسانی درجای یک ردیف موجود با یک UPDATE، بدون خواندن حالت قبلی
+    public static BookChangedEvent updatedInPlace(BookDTO current) {
+        return new BookChangedEvent(null, current, false);
+    }
+
+    public Long getBookId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    public BookDTO getPrevious() {
+        return previous;
+    }
+
+    public BookDTO getCurrent() {
+        return current;
+    }
+
+    public boolean isPreviousKnown() {
+        return previousKnown;
+    }
+
+    public boolean isCreated() {
+        return previous == null && previousKnown;
+    }
+
+    public boolean isDeleted() {
+        return current == null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bookstore.event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * رویداد تغییر گروهی قیمت: به جای یک BookChangedEvent برای هر کتاب، یک رویداد برای هر chunk بعد از commit آن
+ * نکته: bookIds همه شناسه‌های بازه chunk است؛ کتابی که همزمان از فیلتر خارج شده ممکن است تغییر نکرده باشد
+ */
+public class BookPricesChangedEvent {
+
+    private final List<Long> bookIds;
+
+    public BookPricesChangedEvent(List<Long> bookIds) {
+        this.bookIds = Collections.unmodifiableList(bookIds);
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bookstore.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * custom exception: برای کلید یکتایی (شابک، ایمیل) که از قبل وجود دارد
+ * نکته: همان پاسخ 409 که نقض unique constraint دیتابیس می‌دهد
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateResourceException extends RuntimeException {
+
+    public DuplicateResourceException(String message) {
+        super(message);
+    }
+}
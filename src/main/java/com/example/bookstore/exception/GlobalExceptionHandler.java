@@ -1,14 +1,21 @@
 package com.example.bookstore.exception;
 
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -18,15 +25,25 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-    // handling validation errors
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(
-            MethodArgumentNotValidException ex) {
+    private static final Map<String, String> UNIQUE_CONSTRAINT_MESSAGES = Map.of(
+            Book.ISBN_CONSTRAINT, "کتابی با این شابک از قبل وجود دارد",
+            Author.EMAIL_CONSTRAINT, "نویسنده‌ای با این ایمیل از قبل وجود دارد");
+
+    // unique با نام دیگر روی همین جدول‌ها (مثلاً نام خودکار قدیمی Hibernate)؛ تنها ستون یکتای غیر از PK همین‌هاست
+    // MySQL: Duplicate entry '...' for key 'books.UK_...'
+    private static final Map<String, String> UNIQUE_TABLE_MESSAGES = Map.of(
+            "'books.", UNIQUE_CONSTRAINT_MESSAGES.get(Book.ISBN_CONSTRAINT),
+            "'authors.", UNIQUE_CONSTRAINT_MESSAGES.get(Author.EMAIL_CONSTRAINT));
+
+    // handling validation errors (بدنه @Valid و همچنین پارامترهای query که به یک DTO bind می‌شوند)
+    @ExceptionHandler(BindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidationExceptions(BindException ex) {
 
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach(error -> {
             String fieldName = ((FieldError) error).getField();
-            String errorMessage = error.getDefaultMessage();
+            String errorMessage = ((FieldError) error).isBindingFailure()
+                    ? "مقدار فیلد " + fieldName + " نامعتبر است" : error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
 
@@ -40,6 +57,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // handling validation errors of list elements (endpointهای دسته‌ای با @Validated)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Map<String, Object>> handleConstraintViolations(ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+        response.put("error", "Validation Failed");
+        response.put("message", "اعتبارسنجی داده‌ها ناموفق بود");
+        response.put("errors", errors);
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     // handling resource not found
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleResourceNotFound(ResourceNotFoundException ex) {
@@ -52,6 +87,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    // handling duplicate unique keys
+    @ExceptionHandler(DuplicateResourceException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateResource(DuplicateResourceException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflict");
+        response.put("message", ex.getMessage());
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     // handling illegal arguments and state
     @ExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
     public ResponseEntity<Map<String, Object>> handleIllegalArguments(RuntimeException ex) {
@@ -64,6 +111,48 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // handling concurrent modification (optimistic locking با @Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflict");
+        response.put("message", "این رکورد همزمان توسط درخواست دیگری تغییر کرده است؛ دوباره تلاش کنید");
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    // handling unique/foreign key violations (پشتیبان بررسی‌های تکراری در service)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, Object>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflict");
+        response.put("message", conflictMessage(ex));
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    // نام constraint در پیام خطای دیتابیس (MySQL: for key 'books.uk_books_isbn'، H2: UK_BOOKS_ISBN) پیدا می‌شود
+    private static String conflictMessage(DataIntegrityViolationException ex) {
+        String cause = String.valueOf(ex.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, String> entry : UNIQUE_CONSTRAINT_MESSAGES.entrySet()) {
+            if (cause.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        if (cause.contains("duplicate entry") && !cause.contains(".primary'")) {
+            for (Map.Entry<String, String> entry : UNIQUE_TABLE_MESSAGES.entrySet()) {
+                if (cause.contains("for key " + entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return "داده تکراری است یا با داده‌های موجود تعارض دارد";
+    }
+
     // handling all other exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleAllExceptions(Exception ex) {
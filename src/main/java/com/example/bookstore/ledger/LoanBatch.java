@@ -0,0 +1,24 @@
+package com.example.bookstore.ledger;
+
+/**
+ * یک دسته رویداد امانت در آرایه‌های موازی از پیش ساخته؛ نویسنده پس‌زمینه همین یک نمونه را دوباره استفاده می‌کند
+ */
+class LoanBatch {
+
+    final long[] ids;
+    final long[] bookIds;
+    final byte[] actions;
+    final long[] times;
+    int size;
+
+    LoanBatch(int capacity) {
+        this.ids = new long[capacity];
+        this.bookIds = new long[capacity];
+        this.actions = new byte[capacity];
+        this.times = new long[capacity];
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+}
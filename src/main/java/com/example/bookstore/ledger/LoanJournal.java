@@ -0,0 +1,112 @@
+package com.example.bookstore.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * فایل محلی فقط افزودنی برای دسته‌ای که در راه دیتابیس است
+ * نکته: هر دسته پیش از INSERT اینجا نوشته و force می‌شود و بعد از commit فایل خالی می‌شود؛
+ * پس بعد از توقف ناگهانی یا خطای دیتابیس، محتوای فایل دقیقاً ردیف‌هایی است که شاید نوشته نشده‌اند.
+ * رکورد ثابت ۲۵ بایتی: id، bookId، action، زمان.
+ * id صفر رویدادی است که هنگام خاموشی هنوز شناسه نگرفته بود؛ بازپخش پیش از INSERT شناسه را در همان جای
+ * رکورد می‌نویسد تا توقف دوباره وسط بازپخش ردیف تکراری نسازد
+ * فقط نویسنده پس‌زمینه (زیر قفل LoanLedger) از آن استفاده می‌کند
+ */
+class LoanJournal implements Closeable {
+
+    static final int RECORD_BYTES = 8 + 8 + 1 + 8;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    LoanJournal(Path file, int batchSize) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // رکورد ناقص انتهای فایل (نوشتن نیمه‌کاره پیش از توقف) حذف می‌شود تا رکوردهای بعدی هم‌تراز بمانند
+        long complete = channel.size() - channel.size() % RECORD_BYTES;
+        if (complete != channel.size()) {
+            channel.truncate(complete);
+        }
+        channel.position(complete);
+        this.buffer = ByteBuffer.allocateDirect(batchSize * RECORD_BYTES);
+    }
+
+    void append(LoanBatch batch) throws IOException {
+        buffer.clear();
+        for (int i = 0; i < batch.size; i++) {
+            buffer.putLong(batch.ids[i]).putLong(batch.bookIds[i]).put(batch.actions[i]).putLong(batch.times[i]);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * خواندن حداکثر یک دسته از رکورد first به بعد؛ فقط هنگام بازپخش، تا فایل بزرگ یک‌جا در حافظه نیاید
+     */
+    int read(LoanBatch batch, long first) throws IOException {
+        long available = channel.size() / RECORD_BYTES - first;
+        int records = (int) Math.max(0, Math.min(available, batch.capacity()));
+        buffer.clear().limit(records * RECORD_BYTES);
+        long position = first * RECORD_BYTES;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+        for (int i = 0; i < records; i++) {
+            batch.ids[i] = buffer.getLong();
+            batch.bookIds[i] = buffer.getLong();
+            batch.actions[i] = buffer.get();
+            batch.times[i] = buffer.getLong();
+        }
+        batch.size = records;
+        return records;
+    }
+
+    // نوشتن id‌های دسته در همان رکوردها (از first به بعد) و force
+    void writeIds(LoanBatch batch, long first) throws IOException {
+        ByteBuffer id = ByteBuffer.allocate(8);
+        for (int i = 0; i < batch.size; i++) {
+            id.clear();
+            id.putLong(batch.ids[i]).flip();
+            long position = (first + i) * RECORD_BYTES;
+            while (id.hasRemaining()) {
+                position += channel.write(id, position);
+            }
+        }
+        channel.force(false);
+    }
+
+    long records() throws IOException {
+        return channel.size() / RECORD_BYTES;
+    }
+
+    void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
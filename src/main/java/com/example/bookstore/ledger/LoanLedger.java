@@ -0,0 +1,365 @@
+package com.example.bookstore.ledger;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.LoanLedgerStatsDTO;
+import com.example.bookstore.entity.BookLoan;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.enums.LoanAction;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookLoanRepository;
+import com.example.bookstore.service.BatchSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * دفتر فقط افزودنی امانت و بازگشت کتاب‌ها (write-behind)
+ * نکته: مسیر درخواست فقط رویداد را در حلقه محدود LoanRingBuffer می‌گذارد (بدون I/O)؛ نویسنده پس‌زمینه هر
+ * flush-interval حلقه را دسته‌دسته خالی می‌کند، هر دسته را با id در journal محلی می‌نویسد و force می‌کند و بعد
+ * با یک INSERT دسته‌ای در book_loans می‌نویسد؛ بعد از commit فایل خالی می‌شود، پس اندازه آن حداکثر یک دسته است.
+ * اگر برنامه یا دیتابیس بین این دو از کار بیفتد، دسته در journal می‌ماند و flush بعدی (یا اجرای بعدی برنامه)
+ * آن را می‌نویسد؛ ردیف‌هایی که قبلاً درج شده‌اند با id شناخته و رد می‌شوند (حداقل یک بار، بدون تکرار).
+ * رویدادهای داخل حلقه در توقف ناگهانی از دست می‌روند و اگر حلقه تا enqueue-timeout پر بماند رویداد کنار
+ * گذاشته و در آمار شمرده می‌شود؛ درخواست هیچ‌وقت بیشتر از آن منتظر نمی‌ماند
+ */
+@Component
+public class LoanLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanLedger.class);
+
+    private static final String INSERT_SQL = "INSERT INTO book_loans "
+            + "(id, book_id, action, occurred_at, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final LoanAction[] ACTIONS = LoanAction.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookLoanRepository bookLoanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final String journalFile;
+    private final int batchSize;
+    private final long enqueueTimeoutMillis;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LoanRingBuffer ring;
+    private final LoanBatch batch;
+    private LoanJournal journal;
+
+    // وضعیت نویسنده؛ فقط داخل flush و close (synchronized) تغییر می‌کند
+    // pending: دسته از حلقه برداشته شده ولی هنوز نوشته نشده و دوباره امتحان می‌شود
+    // claimed: id‌های دسته pending در journal است؛ شاید تلاش قبلی commit شده باشد
+    private boolean pending;
+    private boolean claimed;
+    private boolean closed;
+    private volatile boolean replayPending;
+    // اولین رکورد journal که هنوز بازپخش نشده
+    private long replayFrom;
+
+    private volatile long written;
+    private volatile long batches;
+    private volatile long failedFlushes;
+    private volatile long replayed;
+    private volatile LocalDateTime lastFlushAt;
+    private volatile String lastError;
+
+    @Autowired
+    public LoanLedger(JdbcTemplate jdbcTemplate, BookLoanRepository bookLoanRepository,
+                      PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory,
+                      @Value("${bookstore.loans.journal-file:data/loan-journal.bin}") String journalFile,
+                      @Value("${bookstore.loans.buffer-capacity:8192}") int bufferCapacity,
+                      @Value("${bookstore.loans.batch-size:500}") int batchSize,
+                      @Value("${bookstore.loans.enqueue-timeout:PT1S}") Duration enqueueTimeout) {
+        if (bufferCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("ظرفیت حلقه و اندازه دسته دفتر امانت باید مثبت باشند");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookLoanRepository = bookLoanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.journalFile = journalFile;
+        this.batchSize = batchSize;
+        this.enqueueTimeoutMillis = enqueueTimeout.toMillis();
+        this.ring = new LoanRingBuffer(bufferCapacity);
+        this.batch = new LoanBatch(batchSize);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        journal = new LoanJournal(Paths.get(journalFile), batchSize);
+        if (journal.size() > 0) {
+            // اجرای قبلی وسط نوشتن یک دسته یا با رویدادهای نوشته‌نشده متوقف شده؛ اولین flush آن را بازپخش می‌کند
+            replayPending = true;
+            log.info("Loan journal has {} bytes to replay", journal.size());
+        }
+    }
+
+    // فقط گذار به BORROWED امانت و گذار از BORROWED بازگشت است؛ گذار با حالت قبلی نامعلوم ثبت نمی‌شود
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO previous = event.getPrevious();
+        BookDTO current = event.getCurrent();
+        if (!event.isPreviousKnown() || previous == null || current == null || current.getStatus() == null) {
+            return;
+        }
+        if (previous.getStatus() != BookStatus.BORROWED && current.getStatus() == BookStatus.BORROWED) {
+            record(current.getId(), LoanAction.BORROW);
+        } else if (previous.getStatus() == BookStatus.BORROWED && current.getStatus() != BookStatus.BORROWED) {
+            record(current.getId(), LoanAction.RETURN);
+        }
+    }
+
+    /**
+     * ثبت رویداد در حلقه؛ اگر نویسنده عقب باشد تا enqueue-timeout منتظر می‌ماند و بعد رویداد را کنار می‌گذارد
+     */
+    public boolean record(long bookId, LoanAction action) {
+        boolean accepted = ring.offer(bookId, action, System.currentTimeMillis(), enqueueTimeoutMillis);
+        if (!accepted) {
+            log.warn("Loan ledger buffer full or closed, dropped {} of book {}", action, bookId);
+        }
+        return accepted;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.loans.flush-interval:PT1S}",
+            initialDelayString = "${bookstore.loans.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * خالی کردن حلقه در دسته‌های batch-size؛ با اولین خطا متوقف می‌شود و flush بعدی همان دسته را دوباره امتحان می‌کند
+     */
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (replayPending) {
+                replay();
+            }
+            while (pending || ring.drainTo(batch) > 0) {
+                if (!pending) {
+                    pending = true;
+                    claimed = false;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (claimed) {
+                        // نتیجه تلاش قبلی نامعلوم است (مثلاً commit انجام شده ولی پاسخ نرسیده)
+                        dropExisting(batch);
+                    } else {
+                        assignIds(batch);
+                        append(batch);
+                        claimed = true;
+                    }
+                    insert(batch, batch.size);
+                });
+                // بعد از commit دسته دیگر به journal نیازی ندارد؛ اگر truncate شکست بخورد بازپخش تکراری‌ها را رد می‌کند
+                pending = false;
+                journal.truncate();
+                written += batch.size;
+                batches++;
+                lastFlushAt = LocalDateTime.now();
+            }
+        } catch (RuntimeException | IOException ex) {
+            failedFlushes++;
+            lastError = ex.getMessage();
+            log.warn("Loan ledger flush failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * بازپخش journal دسته‌دسته (هر دسته یک تراکنش)؛ رکورد بدون id پیش از INSERT شناسه می‌گیرد و شناسه در همان
+     * رکورد نوشته و force می‌شود، پس اگر بعد از commit متوقف شویم بازپخش بعدی آن را با id می‌شناسد و رد می‌کند
+     * رکوردهایی که پیش از توقف درج شده بودند رد می‌شوند و فایل بعد از آخرین دسته خالی می‌شود
+     */
+    private void replay() throws IOException {
+        LoanBatch chunk = new LoanBatch(batchSize);
+        long records = journal.records();
+        long inserted = 0;
+        while (replayFrom < records) {
+            long first = replayFrom;
+            int total = journal.read(chunk, first);
+            transactionTemplate.executeWithoutResult(status -> {
+                assignIds(chunk);
+                writeIds(chunk, first);
+                dropExisting(chunk);
+                insert(chunk, chunk.size);
+            });
+            replayFrom += total;
+            inserted += chunk.size;
+            replayed += chunk.size;
+            written += chunk.size;
+        }
+        journal.truncate();
+        replayPending = false;
+        replayFrom = 0;
+        log.info("Loan journal replayed: {} rows inserted, {} already present", inserted, records - inserted);
+    }
+
+    // حذف درجا رکوردهایی که id آن‌ها قبلاً درج شده است
+    private void dropExisting(LoanBatch target) {
+        List<Long> ids = new ArrayList<>(target.size);
+        for (int i = 0; i < target.size; i++) {
+            if (target.ids[i] != 0) {
+                ids.add(target.ids[i]);
+            }
+        }
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : BatchSupport.partition(ids, BatchSupport.IN_CLAUSE_SIZE)) {
+            existing.addAll(bookLoanRepository.findExistingIds(chunk));
+        }
+
+        int missing = 0;
+        for (int i = 0; i < target.size; i++) {
+            if (target.ids[i] == 0 || existing.add(target.ids[i])) {
+                target.ids[missing] = target.ids[i];
+                target.bookIds[missing] = target.bookIds[i];
+                target.actions[missing] = target.actions[i];
+                target.times[missing] = target.times[i];
+                missing++;
+            }
+        }
+        target.size = missing;
+    }
+
+    // شناسه‌ها از همان sequence pooled-lo خود BookLoan می‌آیند تا پیش از INSERT در journal نوشته شوند
+    // دسته‌ای که بعد از خطا دوباره امتحان می‌شود شناسه‌های قبلی‌اش را نگه می‌دارد
+    private void assignIds(LoanBatch target) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(BookLoan.class)
+                .getIdentifierGenerator();
+        for (int i = 0; i < target.size; i++) {
+            if (target.ids[i] == 0) {
+                target.ids[i] = ((Number) generator.generate(session, null)).longValue();
+            }
+        }
+    }
+
+    // نوشتن نیمه‌کاره پاک می‌شود تا دسته کامل با همان id‌ها دوباره امتحان شود
+    private void append(LoanBatch target) {
+        try {
+            journal.append(target);
+        } catch (IOException ex) {
+            try {
+                journal.truncate();
+            } catch (IOException truncateError) {
+                ex.addSuppressed(truncateError);
+            }
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeIds(LoanBatch target, long first) {
+        try {
+            journal.writeIds(target, first);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // با rewriteBatchedStatements درایور MySQL دسته را به INSERTهای چندسطری تبدیل می‌کند
+    private void insert(LoanBatch source, int count) {
+        if (count == 0) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, source.ids[i]);
+                ps.setLong(2, source.bookIds[i]);
+                ps.setString(3, ACTIONS[source.actions[i]].name());
+                ps.setTimestamp(4, new Timestamp(source.times[i]));
+                ps.setTimestamp(5, now);
+                ps.setTimestamp(6, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        // خاموشی عادی: آنچه در حلقه مانده نوشته می‌شود؛ اگر دیتابیس در دسترس نبود به journal می‌رود
+        // (بدون id) تا اجرای بعدی آن را بازپخش کند. synchronized با flush، و حلقه بسته می‌شود تا رویداد دیررس
+        // بعد از تخلیه در آن نماند
+        flush();
+        ring.close();
+        closed = true;
+        int saved = 0;
+        if (pending) {
+            // دسته claim‌شده از قبل با id‌هایش در journal است
+            if (!claimed) {
+                journal.append(batch);
+            }
+            saved += batch.size;
+            pending = false;
+        }
+        while (ring.drainTo(batch) > 0) {
+            journal.append(batch);
+            saved += batch.size;
+        }
+        if (saved > 0) {
+            log.warn("Loan ledger closed with {} unwritten events saved to journal", saved);
+        }
+        journal.close();
+    }
+
+    public LoanLedgerStatsDTO stats() {
+        long[] counters = ring.counters();
+        LoanLedgerStatsDTO dto = new LoanLedgerStatsDTO();
+        dto.setCapacity(ring.capacity());
+        dto.setBatchSize(batchSize);
+        dto.setDepth(ring.depth());
+        dto.setEnqueued(counters[0]);
+        dto.setProducerWaits(counters[1]);
+        dto.setProducerWaitMillis(counters[2] / 1_000_000);
+        dto.setDropped(counters[3]);
+        dto.setMaxDepth((int) counters[4]);
+        dto.setWritten(written);
+        dto.setBatches(batches);
+        dto.setFailedFlushes(failedFlushes);
+        dto.setReplayed(replayed);
+        dto.setLastFlushAt(lastFlushAt);
+        dto.setLastError(lastError);
+        try {
+            dto.setJournalBytes(journal.size());
+        } catch (IOException ex) {
+            dto.setJournalBytes(-1);
+        }
+        return dto;
+    }
+}
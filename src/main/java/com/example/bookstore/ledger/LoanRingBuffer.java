@@ -0,0 +1,143 @@
+package com.example.bookstore.ledger;
+
+import com.example.bookstore.enums.LoanAction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * صف حلقوی محدود رویدادهای امانت با آرایه‌های اولیه از پیش ساخته
+ * نکته: افزودن در مسیر درخواست فقط چند نوشتن در آرایه زیر یک قفل کوتاه است و شیئی نمی‌سازد؛
+ * اگر حلقه پر باشد درخواست تا timeout منتظر می‌ماند (فشار برگشتی) و بعد رویداد کنار گذاشته و شمرده می‌شود؛
+ * نوشتن در journal کار نویسنده پس‌زمینه است و مسیر درخواست هیچ I/O ندارد
+ */
+class LoanRingBuffer {
+
+    private final long[] bookIds;
+    private final byte[] actions;
+    private final long[] times;
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    // head شماره خانه بعدی برای نوشتن و tail خانه بعدی برای خواندن؛ هر دو فقط زیاد می‌شوند
+    private long head;
+    private long tail;
+
+    private long enqueued;
+    private long waits;
+    private long waitNanos;
+    private long dropped;
+    private int maxDepth;
+    private boolean closed;
+
+    LoanRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.bookIds = new long[size];
+        this.actions = new byte[size];
+        this.times = new long[size];
+        this.mask = size - 1;
+    }
+
+    boolean offer(long bookId, LoanAction action, long epochMillis, long timeoutMillis) {
+        lock.lock();
+        try {
+            if (closed || head - tail == bookIds.length && !awaitSpace(timeoutMillis)) {
+                dropped++;
+                return false;
+            }
+            int slot = (int) (head & mask);
+            bookIds[slot] = bookId;
+            actions[slot] = (byte) action.ordinal();
+            times[slot] = epochMillis;
+            head++;
+            enqueued++;
+            maxDepth = Math.max(maxDepth, (int) (head - tail));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // فقط وقتی حلقه پر است؛ زمان انتظار جزء آمار فشار برگشتی است
+    private boolean awaitSpace(long timeoutMillis) {
+        waits++;
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            while (head - tail == bookIds.length) {
+                if (remaining <= 0 || closed) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * انتقال حداکثر یک دسته به batch با id صفر (هنوز شناسه نگرفته)؛ تعداد منتقل‌شده برمی‌گردد
+     */
+    int drainTo(LoanBatch batch) {
+        lock.lock();
+        try {
+            int count = (int) Math.min(head - tail, batch.capacity());
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((tail + i) & mask);
+                batch.ids[i] = 0;
+                batch.bookIds[i] = bookIds[slot];
+                batch.actions[i] = actions[slot];
+                batch.times[i] = times[slot];
+            }
+            batch.size = count;
+            tail += count;
+            if (count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // بعد از خاموشی کسی حلقه را خالی نمی‌کند؛ رویداد بعدی کنار گذاشته و شمرده می‌شود و منتظرها آزاد می‌شوند
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return bookIds.length;
+    }
+
+    int depth() {
+        lock.lock();
+        try {
+            return (int) (head - tail);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // آمار در یک نگاه زیر قفل: {enqueued, waits, waitNanos, dropped, maxDepth}
+    long[] counters() {
+        lock.lock();
+        try {
+            return new long[]{enqueued, waits, waitNanos, dropped, maxDepth};
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.bookstore.readmodel;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.ReadModelStatsDTO;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.event.BookPricesChangedEvent;
+import com.example.bookstore.readmodel.CatalogSnapshot.AuthorRecord;
+import com.example.bookstore.readmodel.CatalogSnapshot.BookRecord;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorRow;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.BookRow;
+import com.example.bookstore.service.BatchSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * مدل خواندنی درون‌حافظه کاتالوگ (اختیاری، bookstore.read-model.enabled)
+ * نکته: خواننده‌ها فقط ارجاع volatile به آخرین CatalogSnapshot را می‌خوانند و قفلی نمی‌گیرند؛
+ * نویسنده‌ها بعد از commit تغییر را در صف می‌گذارند و هر کس قفل نوشتن را بگیرد همه تغییرات صف را
+ * با یک copy-on-write در تصویر جدید منتشر می‌کند (group commit)، پس هر درخواست بعد از برگشتن تغییر خودش را می‌بیند
+ */
+@Component
+public class CatalogReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogReadModel.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final boolean enabled;
+
+    private volatile CatalogSnapshot snapshot;
+
+    private final ConcurrentLinkedQueue<BookRecord> pendingBooks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<AuthorRecord> pendingAuthors = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long generation;
+
+    // فقط در حین ساخت دوباره null نیست؛ تغییرات منتشرشده در این فاصله روی تصویر تازه دوباره اعمال می‌شوند
+    private List<BookRecord> replayBooks;
+    private List<AuthorRecord> replayAuthors;
+
+    @Autowired
+    public CatalogReadModel(BookRepository bookRepository, AuthorRepository authorRepository,
+                            @Value("${bookstore.read-model.enabled:false}") boolean enabled) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.enabled = enabled;
+    }
+
+    // تا پایان اولین بارگذاری، سرویس‌ها از دیتابیس می‌خوانند
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            rebuild();
+            log.info("Catalog read model loaded with {} books and {} authors",
+                    snapshot.getBookCount(), snapshot.getAuthorCount());
+        }
+    }
+
+    // آشتی دوره‌ای با دیتابیس برای تغییراتی که بدون رویداد انجام شده‌اند
+    @Scheduled(fixedDelayString = "${bookstore.read-model.rebuild-interval:PT1H}",
+            initialDelayString = "${bookstore.read-model.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * ساخت کامل از دیتابیس بدون قفل نوشتن؛ تغییرات همزمان بعد از جایگزینی دوباره اعمال می‌شوند
+     * tombstoneهای قبل از شروع اسکن یک دور دیگر می‌مانند تا رویداد دیررسی که بعد از جایگزینی می‌رسد
+     * کتاب حذف‌شده را برنگرداند؛ ساخت دوباره بعدی آن‌ها را پاک می‌کند
+     */
+    public void rebuild() {
+        long[] tombstones;
+        writeLock.lock();
+        try {
+            replayBooks = new ArrayList<>();
+            replayAuthors = new ArrayList<>();
+            tombstones = snapshot != null ? snapshot.tombstones() : new long[0];
+        } finally {
+            writeLock.unlock();
+        }
+
+        SortedMap<Long, AuthorRecord> authors = new TreeMap<>();
+        SortedMap<Long, BookRecord> books = new TreeMap<>();
+        try {
+            long afterId = 0;
+            List<AuthorRow> authorRows;
+            do {
+                authorRows = authorRepository.findAuthorRows(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (AuthorRow row : authorRows) {
+                    authors.put(row.getId(), authorRecord(row));
+                    afterId = row.getId();
+                }
+            } while (authorRows.size() == LOAD_BATCH_SIZE);
+
+            // عنوان‌های تکراری (مثلاً چاپ‌های مختلف) یک رشته مشترک می‌شوند
+            Map<String, String> titlePool = new HashMap<>();
+            afterId = 0;
+            List<BookRow> bookRows;
+            do {
+                bookRows = bookRepository.findBookRows(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (BookRow row : bookRows) {
+                    books.put(row.getId(), bookRecord(row, titlePool));
+                    afterId = row.getId();
+                }
+            } while (bookRows.size() == LOAD_BATCH_SIZE);
+        } catch (RuntimeException ex) {
+            writeLock.lock();
+            try {
+                replayBooks = null;
+                replayAuthors = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw ex;
+        }
+
+        writeLock.lock();
+        try {
+            CatalogSnapshot fresh = CatalogSnapshot.empty(tombstones).apply(authors, books, ++generation);
+            fresh = fresh.apply(byId(replayAuthors, r -> r.id, AuthorRecord::latest),
+                    byId(replayBooks, r -> r.id, BookRecord::latest), ++generation);
+            replayBooks = null;
+            replayAuthors = null;
+            snapshot = fresh;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- رویدادها
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        BookDTO book = event.getCurrent();
+        if (event.isDeleted()) {
+            pendingBooks.add(BookRecord.deleted(event.getBookId()));
+        } else if (book.getStatus() == null || book.getVersion() == null) {
+            // upsert و import ردیف کامل (وضعیت و نسخه) را در رویداد ندارند؛ از دیتابیس خوانده می‌شود
+            reloadBooks(List.of(book.getId()));
+            return;
+        } else {
+            pendingBooks.add(BookRecord.of(book.getId(), book.getTitle(), book.getIsbn(), book.getCategory(),
+                    book.getStatus(), book.getPrice(), book.getPageCount(), book.getPublicationDate(),
+                    book.getAuthorId(), book.getVersion(), null));
+        }
+        publish();
+    }
+
+    // قیمت‌های جدید در رویداد نیستند؛ بازه chunk با کوئری IN دوباره خوانده می‌شود
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(BookPricesChangedEvent event) {
+        if (enabled) {
+            reloadBooks(event.getBookIds());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isDeleted()) {
+            pendingAuthors.add(AuthorRecord.deleted(event.getAuthorId()));
+        } else {
+            // import نسخه را در DTO رویداد ندارد؛ تغییر نویسنده کم است و از دیتابیس خوانده می‌شود
+            List<AuthorRow> rows = authorRepository.findAuthorRowsByIdIn(List.of(event.getAuthorId()));
+            pendingAuthors.add(rows.isEmpty() ? AuthorRecord.deleted(event.getAuthorId()) : authorRecord(rows.get(0)));
+        }
+        publish();
+    }
+
+    private void reloadBooks(Collection<Long> ids) {
+        for (List<Long> chunk : BatchSupport.partition(ids, BatchSupport.IN_CLAUSE_SIZE)) {
+            Map<Long, BookRecord> found = new HashMap<>();
+            for (BookRow row : bookRepository.findBookRowsByIdIn(chunk)) {
+                found.put(row.getId(), bookRecord(row, null));
+            }
+            for (Long id : chunk) {
+                BookRecord record = found.get(id);
+                pendingBooks.add(record != null ? record : BookRecord.deleted(id));
+            }
+        }
+        publish();
+    }
+
+    /**
+     * تخلیه صف و انتشار یک تصویر جدید؛ اگر نویسنده دیگری قفل را دارد منتظر می‌ماند و
+     * معمولاً صف را خالی می‌یابد چون تغییر این thread هم در همان دسته منتشر شده است
+     */
+    private void publish() {
+        writeLock.lock();
+        try {
+            if (snapshot == null) {
+                // هنوز بارگذاری نشده؛ ساخت کامل این تغییرات را از دیتابیس می‌بیند و بقیه replay می‌شوند
+                drainInto(replayAuthors, replayBooks);
+                return;
+            }
+            SortedMap<Long, AuthorRecord> authors = new TreeMap<>();
+            SortedMap<Long, BookRecord> books = new TreeMap<>();
+            AuthorRecord author;
+            while ((author = pendingAuthors.poll()) != null) {
+                authors.merge(author.id, author, AuthorRecord::latest);
+                if (replayAuthors != null) {
+                    replayAuthors.add(author);
+                }
+            }
+            BookRecord book;
+            while ((book = pendingBooks.poll()) != null) {
+                books.merge(book.id, book, BookRecord::latest);
+                if (replayBooks != null) {
+                    replayBooks.add(book);
+                }
+            }
+            if (!authors.isEmpty() || !books.isEmpty()) {
+                snapshot = snapshot.apply(authors, books, ++generation);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void drainInto(List<AuthorRecord> authors, List<BookRecord> books) {
+        AuthorRecord author;
+        while ((author = pendingAuthors.poll()) != null) {
+            if (authors != null) {
+                authors.add(author);
+            }
+        }
+        BookRecord book;
+        while ((book = pendingBooks.poll()) != null) {
+            if (books != null) {
+                books.add(book);
+            }
+        }
+    }
+
+    private static <T> SortedMap<Long, T> byId(List<T> records, ToLongFunction<T> idOf, BinaryOperator<T> latest) {
+        SortedMap<Long, T> map = new TreeMap<>();
+        for (T record : records) {
+            map.merge(idOf.applyAsLong(record), record, latest);
+        }
+        return map;
+    }
+
+    private static AuthorRecord authorRecord(AuthorRow row) {
+        AuthorDTO dto = new AuthorDTO();
+        dto.setId(row.getId());
+        dto.setFirstName(row.getFirstName());
+        dto.setLastName(row.getLastName());
+        dto.setEmail(row.getEmail());
+        dto.setAge(row.getAge());
+        dto.setVersion(row.getVersion());
+        return AuthorRecord.of(dto);
+    }
+
+    private static BookRecord bookRecord(BookRow row, Map<String, String> titlePool) {
+        return BookRecord.of(row.getId(), row.getTitle(), row.getIsbn(), row.getCategory(), row.getStatus(),
+                row.getPrice(), row.getPageCount(), row.getPublicationDate(), row.getAuthorId(), row.getVersion(),
+                titlePool);
+    }
+
+    // ---------------------------------------------------------------- آمار
+
+    /**
+     * حجم حافظه تصویر فعلی و برون‌یابی آن برای یک میلیون کتاب با همین میانگین طول عنوان‌ها
+     */
+    public ReadModelStatsDTO stats() {
+        ReadModelStatsDTO stats = new ReadModelStatsDTO();
+        stats.setEnabled(enabled);
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return stats;
+        }
+        long[] footprint = current.footprint();
+        stats.setReady(true);
+        stats.setGeneration(current.getGeneration());
+        stats.setPublishedAt(current.getPublishedAt());
+        stats.setBooks(current.getBookCount());
+        stats.setAuthors(current.getAuthorCount());
+        stats.setColumnBytes(footprint[0]);
+        stats.setTitleBytes(footprint[1]);
+        stats.setAuthorBytes(footprint[2]);
+        stats.setTotalBytes(footprint[0] + footprint[1] + footprint[2]);
+        if (current.getBookCount() > 0) {
+            long perBook = (footprint[0] + footprint[1]) / current.getBookCount();
+            stats.setBytesPerBook(perBook);
+            stats.setBytesPerMillionBooks(perBook * 1_000_000L);
+        } else {
+            stats.setBytesPerBook(CatalogSnapshot.BOOK_ROW_BYTES);
+            stats.setBytesPerMillionBooks(CatalogSnapshot.BOOK_ROW_BYTES * 1_000_000L);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,519 @@
+package com.example.bookstore.readmodel;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * تصویر تغییرناپذیر کل کاتالوگ به صورت ستونی
+ * نکته: هر ستون کتاب یک آرایه primitive مرتب بر اساس id است (قیمت ضرب در ۱۰۰ در long، وضعیت و دسته‌بندی به صورت ordinal،
+ * نویسنده به صورت اندیس در آرایه نویسندگان، شابک ۱۳ رقمی در long) و BookDTO هنگام خواندن از همین ستون‌ها ساخته می‌شود؛
+ * AuthorDTO هر نویسنده (با bookCount) از پیش ساخته و فقط‌خواندنی است
+ * تغییرات با apply یک تصویر جدید می‌سازند و تصویر قبلی دست نمی‌خورد، پس خواندن قفل نمی‌خواهد
+ * تغییر با نسخه کمتر از ردیف فعلی نادیده گرفته می‌شود و id کتاب‌های حذف‌شده تا ساخت دوباره بعدی (tombstone)
+ * نگه داشته می‌شود تا رویداد دیررس یا ردیف کهنه reload آن را برنگرداند
+ */
+public final class CatalogSnapshot {
+
+    static final long NO_PRICE = Long.MIN_VALUE;
+    static final int NO_PAGES = -1;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final BookCategory[] CATEGORIES = BookCategory.values();
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
+    // بایت هر ردیف کتاب در ستون‌ها با فرض compressed oops (مرجع ۴ بایتی)
+    static final int BOOK_ROW_BYTES = 8 + 4 + 8 + 1 + 1 + 8 + 4 + 4 + 4 + 8;
+
+    private final long generation;
+    private final LocalDateTime publishedAt;
+
+    // ستون‌های کتاب
+    private final int size;
+    private final long[] ids;
+    private final String[] titles;
+    private final long[] isbns;
+    private final byte[] categories;
+    private final byte[] statuses;
+    private final long[] priceCents;
+    private final int[] pageCounts;
+    private final int[] publicationDays;
+    private final int[] authorIndexes;
+    private final long[] versions;
+
+    // نویسندگان مرتب بر اساس id
+    private final long[] authorIds;
+    private final String[] authorNames;
+    private final AuthorDTO[] authorViews;
+
+    // id کتاب‌های حذف‌شده، مرتب؛ id دوباره استفاده نمی‌شود پس حذف نهایی است
+    private final long[] tombstones;
+
+    private CatalogSnapshot(long generation, int size, long[] ids, String[] titles, long[] isbns, byte[] categories,
+                            byte[] statuses, long[] priceCents, int[] pageCounts, int[] publicationDays,
+                            int[] authorIndexes, long[] versions, long[] authorIds, String[] authorNames,
+                            AuthorDTO[] authorViews, long[] tombstones) {
+        this.generation = generation;
+        this.publishedAt = LocalDateTime.now();
+        this.size = size;
+        this.ids = ids;
+        this.titles = titles;
+        this.isbns = isbns;
+        this.categories = categories;
+        this.statuses = statuses;
+        this.priceCents = priceCents;
+        this.pageCounts = pageCounts;
+        this.publicationDays = publicationDays;
+        this.authorIndexes = authorIndexes;
+        this.versions = versions;
+        this.authorIds = authorIds;
+        this.authorNames = authorNames;
+        this.authorViews = authorViews;
+        this.tombstones = tombstones;
+    }
+
+    static CatalogSnapshot empty() {
+        return empty(new long[0]);
+    }
+
+    // تصویر خالی با tombstoneهای داده‌شده (برای ساخت دوباره)
+    static CatalogSnapshot empty(long[] tombstones) {
+        return new CatalogSnapshot(0, 0, new long[0], new String[0], new long[0], new byte[0], new byte[0],
+                new long[0], new int[0], new int[0], new int[0], new long[0], new long[0], new String[0],
+                new AuthorDTO[0], tombstones);
+    }
+
+    long[] tombstones() {
+        return tombstones;
+    }
+
+    /**
+     * تصویر جدید با اعمال تغییرات (مرتب بر اساس id؛ رکورد deleted یعنی حذف)
+     * هزینه O(n) است چون ستون‌ها با ادغام مرتب کپی می‌شوند؛ برای همین تغییرات همزمان دسته‌ای اعمال می‌شوند
+     */
+    CatalogSnapshot apply(SortedMap<Long, AuthorRecord> authorChanges, SortedMap<Long, BookRecord> bookChanges,
+                          long nextGeneration) {
+        // ادغام نویسندگان؛ remap اندیس قدیم را به اندیس جدید (یا -1 برای حذف‌شده) می‌برد
+        List<AuthorRecord> mergedAuthors = new ArrayList<>(authorIds.length + authorChanges.size());
+        int[] remap = new int[authorIds.length];
+        int oldIndex = 0;
+        for (AuthorRecord change : authorChanges.values()) {
+            while (oldIndex < authorIds.length && authorIds[oldIndex] < change.id) {
+                remap[oldIndex] = mergedAuthors.size();
+                mergedAuthors.add(AuthorRecord.of(authorViews[oldIndex]));
+                oldIndex++;
+            }
+            if (oldIndex < authorIds.length && authorIds[oldIndex] == change.id) {
+                if (!change.deleted && change.versionOrZero() < versionOf(authorViews[oldIndex])) {
+                    // تغییر کهنه؛ ردیف فعلی می‌ماند
+                    remap[oldIndex] = mergedAuthors.size();
+                    mergedAuthors.add(AuthorRecord.of(authorViews[oldIndex]));
+                    oldIndex++;
+                    continue;
+                }
+                remap[oldIndex] = change.deleted ? -1 : mergedAuthors.size();
+                oldIndex++;
+            }
+            if (!change.deleted) {
+                mergedAuthors.add(change);
+            }
+        }
+        while (oldIndex < authorIds.length) {
+            remap[oldIndex] = mergedAuthors.size();
+            mergedAuthors.add(AuthorRecord.of(authorViews[oldIndex]));
+            oldIndex++;
+        }
+        long[] newAuthorIds = new long[mergedAuthors.size()];
+        for (int i = 0; i < newAuthorIds.length; i++) {
+            newAuthorIds[i] = mergedAuthors.get(i).id;
+        }
+
+        // ادغام کتاب‌ها
+        int capacity = size + bookChanges.size();
+        long[] newIds = new long[capacity];
+        String[] newTitles = new String[capacity];
+        long[] newIsbns = new long[capacity];
+        byte[] newCategories = new byte[capacity];
+        byte[] newStatuses = new byte[capacity];
+        long[] newPrices = new long[capacity];
+        int[] newPageCounts = new int[capacity];
+        int[] newDays = new int[capacity];
+        int[] newAuthorIndexes = new int[capacity];
+        long[] newVersions = new long[capacity];
+        int[] bookCounts = new int[newAuthorIds.length];
+        long[] newTombstones = tombstones;
+
+        int n = 0;
+        int old = 0;
+        for (BookRecord change : bookChanges.values()) {
+            while (old < size && ids[old] < change.id) {
+                n = copyRow(old, remap[authorIndexes[old]], n, newIds, newTitles, newIsbns, newCategories,
+                        newStatuses, newPrices, newPageCounts, newDays, newAuthorIndexes, newVersions, bookCounts);
+                old++;
+            }
+            int previous = -1;
+            if (old < size && ids[old] == change.id) {
+                previous = old++;
+            }
+            if (change.deleted) {
+                newTombstones = addTombstone(newTombstones, change.id);
+                continue;
+            }
+            if (Arrays.binarySearch(newTombstones, change.id) >= 0) {
+                // رویداد دیررس یا reload کهنه برای کتابی که حذف شده
+                continue;
+            }
+            int author = Arrays.binarySearch(newAuthorIds, change.authorId);
+            if (author < 0 || previous >= 0 && change.version < versions[previous]) {
+                // تغییر کهنه، یا نویسنده هنوز در تصویر نیست (ترتیب رویدادها)؛ ردیف قبلی می‌ماند
+                // و ساخت دوباره دوره‌ای باقی را اصلاح می‌کند
+                if (previous >= 0) {
+                    n = copyRow(previous, remap[authorIndexes[previous]], n, newIds, newTitles, newIsbns,
+                            newCategories, newStatuses, newPrices, newPageCounts, newDays, newAuthorIndexes,
+                            newVersions, bookCounts);
+                }
+                continue;
+            }
+            newIds[n] = change.id;
+            newTitles[n] = change.title;
+            newIsbns[n] = change.isbn;
+            newCategories[n] = change.category;
+            // upsert وضعیت را نمی‌فرستد؛ وضعیت قبلی همان ردیف حفظ می‌شود
+            newStatuses[n] = change.status >= 0 ? change.status
+                    : previous >= 0 ? statuses[previous] : (byte) BookStatus.AVAILABLE.ordinal();
+            newPrices[n] = change.priceCents;
+            newPageCounts[n] = change.pageCount;
+            newDays[n] = change.publicationDay;
+            newAuthorIndexes[n] = author;
+            newVersions[n] = change.version;
+            bookCounts[author]++;
+            n++;
+        }
+        while (old < size) {
+            n = copyRow(old, remap[authorIndexes[old]], n, newIds, newTitles, newIsbns, newCategories,
+                    newStatuses, newPrices, newPageCounts, newDays, newAuthorIndexes, newVersions, bookCounts);
+            old++;
+        }
+
+        String[] newAuthorNames = new String[newAuthorIds.length];
+        AuthorDTO[] newAuthorViews = new AuthorDTO[newAuthorIds.length];
+        for (int i = 0; i < newAuthorIds.length; i++) {
+            AuthorRecord author = mergedAuthors.get(i);
+            newAuthorViews[i] = author.toDTO(bookCounts[i]);
+            newAuthorNames[i] = author.firstName + " " + author.lastName;
+        }
+
+        return new CatalogSnapshot(nextGeneration, n, trim(newIds, n), trim(newTitles, n), trim(newIsbns, n),
+                trim(newCategories, n), trim(newStatuses, n), trim(newPrices, n), trim(newPageCounts, n),
+                trim(newDays, n), trim(newAuthorIndexes, n), trim(newVersions, n), newAuthorIds, newAuthorNames,
+                newAuthorViews, newTombstones);
+    }
+
+    private static long[] addTombstone(long[] sorted, long id) {
+        int index = Arrays.binarySearch(sorted, id);
+        if (index >= 0) {
+            return sorted;
+        }
+        int insert = -index - 1;
+        long[] grown = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, grown, 0, insert);
+        grown[insert] = id;
+        System.arraycopy(sorted, insert, grown, insert + 1, sorted.length - insert);
+        return grown;
+    }
+
+    private static long versionOf(AuthorDTO author) {
+        return author.getVersion() != null ? author.getVersion() : 0;
+    }
+
+    // ردیف کتابی که نویسنده‌اش حذف شده کنار گذاشته می‌شود
+    private int copyRow(int from, int author, int to, long[] newIds, String[] newTitles, long[] newIsbns,
+                        byte[] newCategories, byte[] newStatuses, long[] newPrices, int[] newPageCounts,
+                        int[] newDays, int[] newAuthorIndexes, long[] newVersions, int[] bookCounts) {
+        if (author < 0) {
+            return to;
+        }
+        newIds[to] = ids[from];
+        newTitles[to] = titles[from];
+        newIsbns[to] = isbns[from];
+        newCategories[to] = categories[from];
+        newStatuses[to] = statuses[from];
+        newPrices[to] = priceCents[from];
+        newPageCounts[to] = pageCounts[from];
+        newDays[to] = publicationDays[from];
+        newAuthorIndexes[to] = author;
+        newVersions[to] = versions[from];
+        bookCounts[author]++;
+        return to + 1;
+    }
+
+    // ---------------------------------------------------------------- خواندن
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public int getBookCount() {
+        return size;
+    }
+
+    public int getAuthorCount() {
+        return authorIds.length;
+    }
+
+    // اندیس کتاب یا عدد منفی اگر نباشد
+    public int indexOfBook(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    public int indexOfAuthor(long id) {
+        return Arrays.binarySearch(authorIds, id);
+    }
+
+    public BookDTO bookView(int index) {
+        int author = authorIndexes[index];
+        BookDTO dto = new BookDTO();
+        dto.setId(ids[index]);
+        dto.setTitle(titles[index]);
+        dto.setIsbn(formatIsbn(isbns[index]));
+        dto.setCategory(CATEGORIES[categories[index]]);
+        dto.setStatus(STATUSES[statuses[index]]);
+        dto.setPrice(priceCents[index] == NO_PRICE ? null : BigDecimal.valueOf(priceCents[index], 2));
+        dto.setPageCount(pageCounts[index] == NO_PAGES ? null : pageCounts[index]);
+        dto.setPublicationDate(publicationDays[index] == NO_DATE ? null : LocalDate.ofEpochDay(publicationDays[index]));
+        dto.setAuthorId(authorIds[author]);
+        dto.setAuthorName(authorNames[author]);
+        dto.setVersion(versions[index]);
+        return dto;
+    }
+
+    public long bookVersion(int index) {
+        return versions[index];
+    }
+
+    public long bookAuthorVersion(int index) {
+        Long version = authorViews[authorIndexes[index]].getVersion();
+        return version != null ? version : 0;
+    }
+
+    // view از پیش ساخته؛ فراخواننده نباید آن را تغییر دهد
+    public AuthorDTO authorView(int index) {
+        return authorViews[index];
+    }
+
+    /**
+     * کتاب‌های بعد از afterId به ترتیب id با فیلترهای اختیاری؛ پیمایش ستون‌های byte/int بدون ساخت شیء
+     */
+    public List<BookDTO> findBooks(BookCategory category, BookStatus status, Long authorId, long afterId, int limit) {
+        int author = -1;
+        if (authorId != null) {
+            author = indexOfAuthor(authorId);
+            if (author < 0) {
+                return Collections.emptyList();
+            }
+        }
+        byte categoryOrdinal = category != null ? (byte) category.ordinal() : -1;
+        byte statusOrdinal = status != null ? (byte) status.ordinal() : -1;
+
+        List<BookDTO> books = new ArrayList<>(limit);
+        for (int i = firstAfter(ids, size, afterId); i < size && books.size() < limit; i++) {
+            if ((categoryOrdinal < 0 || categories[i] == categoryOrdinal)
+                    && (statusOrdinal < 0 || statuses[i] == statusOrdinal)
+                    && (author < 0 || authorIndexes[i] == author)) {
+                books.add(bookView(i));
+            }
+        }
+        return books;
+    }
+
+    public List<AuthorDTO> findAuthors(long afterId, int limit) {
+        List<AuthorDTO> authors = new ArrayList<>(limit);
+        for (int i = firstAfter(authorIds, authorIds.length, afterId); i < authorIds.length && authors.size() < limit; i++) {
+            authors.add(authorViews[i]);
+        }
+        return authors;
+    }
+
+    private static int firstAfter(long[] sortedIds, int length, long afterId) {
+        int index = Arrays.binarySearch(sortedIds, 0, length, afterId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    // ---------------------------------------------------------------- حجم حافظه
+
+    /**
+     * بایت ستون‌های کتاب، رشته‌های عنوان (هر رشته یکتا یک بار) و viewهای نویسندگان
+     * تخمین با فرض compressed oops و رشته‌های فشرده (Latin-1 یک بایت، فارسی دو بایت برای هر کاراکتر)
+     */
+    long[] footprint() {
+        long columnBytes = (long) size * BOOK_ROW_BYTES;
+        Map<String, Boolean> distinct = new IdentityHashMap<>();
+        long stringBytes = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct.put(titles[i], Boolean.TRUE) == null) {
+                stringBytes += stringBytes(titles[i]);
+            }
+        }
+        long authorBytes = (long) authorIds.length * (8 + 4 + 4);
+        for (int i = 0; i < authorIds.length; i++) {
+            AuthorDTO author = authorViews[i];
+            // AuthorDTO: سرآیند + ۷ فیلد مرجع، به همراه Long/Integer های boxed
+            authorBytes += 48 + 16 + 16 + 16 + stringBytes(author.getFirstName()) + stringBytes(author.getLastName())
+                    + stringBytes(author.getEmail()) + stringBytes(authorNames[i]);
+        }
+        return new long[]{columnBytes, stringBytes, authorBytes};
+    }
+
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(ch -> ch < 256);
+        long array = 16 + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) / 8) * 8;
+    }
+
+    static String formatIsbn(long isbn) {
+        return String.format("%013d", isbn);
+    }
+
+    private static long[] trim(long[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static int[] trim(int[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static byte[] trim(byte[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static String[] trim(String[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    /**
+     * یک ردیف کتاب برای اعمال در تصویر؛ status منفی یعنی نامعلوم (حفظ وضعیت فعلی)
+     */
+    static final class BookRecord {
+
+        final long id;
+        final boolean deleted;
+        String title;
+        long isbn;
+        byte category;
+        byte status = -1;
+        long priceCents = NO_PRICE;
+        int pageCount = NO_PAGES;
+        int publicationDay = NO_DATE;
+        long authorId;
+        long version;
+
+        private BookRecord(long id, boolean deleted) {
+            this.id = id;
+            this.deleted = deleted;
+        }
+
+        static BookRecord deleted(long id) {
+            return new BookRecord(id, true);
+        }
+
+        static BookRecord of(Long id, String title, String isbn, BookCategory category, BookStatus status,
+                             BigDecimal price, Integer pageCount, LocalDate publicationDate, Long authorId,
+                             Long version, Map<String, String> titlePool) {
+            BookRecord record = new BookRecord(id, false);
+            record.title = titlePool != null ? titlePool.computeIfAbsent(title, t -> t) : title;
+            record.isbn = Long.parseLong(isbn);
+            record.category = (byte) category.ordinal();
+            record.status = status != null ? (byte) status.ordinal() : -1;
+            record.priceCents = price != null ? price.movePointRight(2).longValueExact() : NO_PRICE;
+            record.pageCount = pageCount != null ? pageCount : NO_PAGES;
+            record.publicationDay = publicationDate != null ? (int) publicationDate.toEpochDay() : NO_DATE;
+            record.authorId = authorId;
+            record.version = version != null ? version : 0;
+            return record;
+        }
+
+        // ادغام دو تغییر یک کتاب در یک دسته: حذف برنده است، وگرنه نسخه بالاتر (در تساوی، دومی)
+        static BookRecord latest(BookRecord first, BookRecord second) {
+            if (first.deleted || second.deleted) {
+                return first.deleted ? first : second;
+            }
+            return second.version >= first.version ? second : first;
+        }
+    }
+
+    /**
+     * یک ردیف نویسنده برای اعمال در تصویر
+     */
+    static final class AuthorRecord {
+
+        final long id;
+        final boolean deleted;
+        String firstName;
+        String lastName;
+        String email;
+        Integer age;
+        Long version;
+
+        private AuthorRecord(long id, boolean deleted) {
+            this.id = id;
+            this.deleted = deleted;
+        }
+
+        static AuthorRecord deleted(long id) {
+            return new AuthorRecord(id, true);
+        }
+
+        static AuthorRecord of(AuthorDTO author) {
+            AuthorRecord record = new AuthorRecord(author.getId(), false);
+            record.firstName = author.getFirstName();
+            record.lastName = author.getLastName();
+            record.email = author.getEmail();
+            record.age = author.getAge();
+            record.version = author.getVersion();
+            return record;
+        }
+
+        long versionOrZero() {
+            return version != null ? version : 0;
+        }
+
+        // مثل BookRecord.latest
+        static AuthorRecord latest(AuthorRecord first, AuthorRecord second) {
+            if (first.deleted || second.deleted) {
+                return first.deleted ? first : second;
+            }
+            return second.versionOrZero() >= first.versionOrZero() ? second : first;
+        }
+
+        AuthorDTO toDTO(int bookCount) {
+            AuthorDTO dto = new AuthorDTO();
+            dto.setId(id);
+            dto.setFirstName(firstName);
+            dto.setLastName(lastName);
+            dto.setEmail(email);
+            dto.setAge(age);
+            dto.setBookCount(bookCount);
+            dto.setVersion(version);
+            return dto;
+        }
+    }
+}
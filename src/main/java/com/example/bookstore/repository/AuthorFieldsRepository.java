@@ -0,0 +1,21 @@
+package com.example.bookstore.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fragment مخزن نویسنده برای sparse fieldset
+ * نکته: LEFT JOIN کتاب‌ها و GROUP BY فقط وقتی bookCount خواسته شده باشد
+ */
+public interface AuthorFieldsRepository {
+
+    Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("id", "firstName",
+            "lastName", "fullName", "email", "age", "bookCount", "version")));
+
+    // id == null یعنی همه نویسندگان با keyset بعد از afterId
+    List<Map<String, Object>> findAuthorFields(FieldSelection fields, Long id, long afterId, int limit);
+}
@@ -0,0 +1,66 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * پیاده‌سازی fragment با Criteria tuple query
+ */
+public class AuthorFieldsRepositoryImpl implements AuthorFieldsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAuthorFields(FieldSelection fields, Long id, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Author> author = query.from(Author.class);
+        boolean counting = fields.contains("bookCount");
+        Join<Author, Book> books = counting ? author.join("books", JoinType.LEFT) : null;
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> groupBy = new ArrayList<>();
+        for (String field : fields.getFields()) {
+            Expression<?> expression;
+            if ("bookCount".equals(field)) {
+                expression = cb.count(books.get("id"));
+            } else if ("fullName".equals(field)) {
+                expression = cb.concat(cb.concat(author.<String>get("firstName"), " "), author.<String>get("lastName"));
+                groupBy.add(author.get("firstName"));
+                groupBy.add(author.get("lastName"));
+            } else {
+                expression = author.get(field);
+                groupBy.add(expression);
+            }
+            selections.add(expression.alias(field));
+        }
+        query.multiselect(selections);
+
+        if (id != null) {
+            query.where(cb.equal(author.get("id"), id));
+        } else {
+            query.where(cb.greaterThan(author.get("id"), afterId));
+        }
+        if (counting) {
+            query.groupBy(groupBy);
+        }
+        query.orderBy(cb.asc(author.get("id")));
+
+        return FieldSelection.toMaps(entityManager.createQuery(query).setMaxResults(limit).getResultList());
+    }
+}
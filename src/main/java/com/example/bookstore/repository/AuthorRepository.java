@@ -1,35 +1,147 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.entity.Author;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static com.example.bookstore.repository.BookStatsRepository.STATS_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 /**
  * interface: قرارداد که کلاس‌های پیاده‌کننده باید متدهای آن را implement کنند
  * نکته: Spring Data JPA به صورت خودکار implementation ایجاد می‌کند
  */
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Long> {
+public interface AuthorRepository extends JpaRepository<Author, Long>, AuthorFieldsRepository {
 
     // polymorphism: اینترفیس می‌تواند multiple inheritance داشته باشد
 
     // derived query - Spring Data JPA به صورت خودکار کوئری می‌سازد
     Optional<Author> findByEmail(String email);
 
+    boolean existsByEmail(String email);
+
+    @Query("SELECT a.email FROM Author a WHERE a.email IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
     List<Author> findByLastNameContainingIgnoreCase(String lastName);
 
     List<Author> findByAgeGreaterThanEqual(Integer age);
 
-    // JPQL query
-    @Query("SELECT a FROM Author a WHERE SIZE(a.books) >= :minBooks")
-    List<Author> findAuthorsWithMinimumBooks(int minBooks);
+    // projection: ستون‌های AuthorDTO به همراه تعداد کتاب‌ها از GROUP BY روی books.author_id
+    // نکته: مجموعه lazy Author.books هرگز فقط برای شمردن بارگذاری نمی‌شود
+    interface AuthorRow {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        Integer getAge();
+        Long getBookCount();
+        Long getVersion();
+    }
+
+    String AUTHOR_ROW_SELECT = "SELECT a.id as id, a.firstName as firstName, a.lastName as lastName, " +
+            "a.email as email, a.age as age, COUNT(b.id) as bookCount, a.version as version " +
+            "FROM Author a LEFT JOIN a.books b ";
+
+    String AUTHOR_ROW_GROUP_BY = "GROUP BY a.id, a.firstName, a.lastName, a.email, a.age, a.version ";
+
+    @Query(AUTHOR_ROW_SELECT + "WHERE a.id = :id " + AUTHOR_ROW_GROUP_BY)
+    Optional<AuthorRow> findAuthorRowById(Long id);
+
+    @Query(AUTHOR_ROW_SELECT + "WHERE a.id IN :ids " + AUTHOR_ROW_GROUP_BY)
+    List<AuthorRow> findAuthorRowsByIdIn(Collection<Long> ids);
+
+    @Query(AUTHOR_ROW_SELECT + "WHERE a.email = :email " + AUTHOR_ROW_GROUP_BY)
+    Optional<AuthorRow> findAuthorRowByEmail(String email);
+
+    // keyset pagination: فقط ردیف‌های بعد از آخرین id دیده‌شده، بدون OFFSET
+    @Query(AUTHOR_ROW_SELECT + "WHERE a.id > :afterId " + AUTHOR_ROW_GROUP_BY + "ORDER BY a.id")
+    List<AuthorRow> findAuthorRows(Long afterId, Pageable limit);
+
+    // JPQL با join و HAVING: مرتب بر اساس تعداد کتاب (نزولی) و سپس id؛ keyset روی (bookCount, id)
+    @Query(AUTHOR_ROW_SELECT + AUTHOR_ROW_GROUP_BY +
+            "HAVING COUNT(b.id) >= :minBooks AND (COUNT(b.id) < :afterCount " +
+            "OR (COUNT(b.id) = :afterCount AND a.id > :afterId)) " +
+            "ORDER BY COUNT(b.id) DESC, a.id ASC")
+    List<AuthorRow> findAuthorsWithMinimumBooks(long minBooks, long afterCount, Long afterId, Pageable limit);
+
+    // projection سبک برای ساختارهای درون‌حافظه‌ای مثل پیشنهاد خودکار نام
+    interface AuthorName {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+    }
+
+    @Query("SELECT a.id as id, a.firstName as firstName, a.lastName as lastName, a.email as email " +
+            "FROM Author a WHERE a.id > :afterId ORDER BY a.id")
+    List<AuthorName> findAuthorNames(Long afterId, Pageable limit);
 
     // native query
-    @Query(value = "SELECT * FROM authors a WHERE a.first_name LIKE %:name% OR a.last_name LIKE %:name%",
+    @Query(value = "SELECT a.id AS id, a.first_name AS firstName, a.last_name AS lastName, a.email AS email, " +
+            "a.age AS age, COUNT(b.id) AS bookCount, a.version AS version " +
+            "FROM authors a LEFT JOIN books b ON b.author_id = a.id " +
+            "WHERE (a.first_name LIKE %:name% OR a.last_name LIKE %:name%) AND a.id > :afterId " +
+            "GROUP BY a.id, a.first_name, a.last_name, a.email, a.age, a.version ORDER BY a.id LIMIT :limit",
             nativeQuery = true)
-    List<Author> findByNameContaining(String name);
-}
\ No newline at end of file
+    List<AuthorRow> findByNameContaining(String name, Long afterId, int limit);
+
+    // نسخه برای GET شرطی: bookCount جزء پاسخ است، پس تعداد کتاب‌ها هم در نسخه اثر دارد
+    interface AuthorVersion {
+        LocalDateTime getUpdatedAt();
+        Long getBookCount();
+    }
+
+    @Query("SELECT a.updatedAt as updatedAt, COUNT(b.id) as bookCount " +
+            "FROM Author a LEFT JOIN a.books b WHERE a.id = :id GROUP BY a.id, a.updatedAt")
+    Optional<AuthorVersion> findVersionById(Long id);
+
+    interface ListVersion {
+        LocalDateTime getLastModified();
+        Long getCount();
+    }
+
+    @Query("SELECT MAX(a.updatedAt) as lastModified, COUNT(a.id) as count FROM Author a")
+    ListVersion findListVersion();
+
+    // آمار نویسندگان: فقط ردیف‌های تجمیعی، در region کوتاه‌مدت query cache
+    interface AuthorSummary {
+        Long getCount();
+        Integer getMinAge();
+        Integer getMaxAge();
+        Double getAvgAge();
+    }
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = STATS_CACHE_REGION)})
+    @Query("SELECT COUNT(a.id) as count, MIN(a.age) as minAge, MAX(a.age) as maxAge, AVG(a.age) as avgAge " +
+            "FROM Author a")
+    AuthorSummary summarizeAuthors();
+
+    interface BookSpread {
+        Long getBooks();
+        Long getWithBooks();
+    }
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = STATS_CACHE_REGION)})
+    @Query("SELECT COUNT(b.id) as books, COUNT(DISTINCT b.author.id) as withBooks FROM Book b")
+    BookSpread summarizeBookSpread();
+
+    // بیشترین تعداد کتاب یک نویسنده: GROUP BY روی author_id و فقط ردیف اول
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = STATS_CACHE_REGION)})
+    @Query("SELECT COUNT(b.id) FROM Book b GROUP BY b.author.id ORDER BY COUNT(b.id) DESC")
+    List<Long> findBookCountsPerAuthor(Pageable limit);
+}
@@ -0,0 +1,24 @@
+package com.example.bookstore.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fragment مخزن کتاب برای sparse fieldset: فقط ستون‌های درخواستی در SELECT می‌آیند
+ * نکته: مثل projection ثابت BookSummary ولی پویا؛ JOIN نویسنده فقط برای authorName زده می‌شود
+ */
+public interface BookFieldsRepository {
+
+    Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("id", "title", "isbn",
+            "category", "status", "price", "pageCount", "publicationDate", "authorId", "authorName", "version")));
+
+    /**
+     * filterAttribute یکی از category، status یا authorId (یا null برای همه کتاب‌ها)؛ ترتیب بر اساس id
+     */
+    List<Map<String, Object>> findBookFields(FieldSelection fields, String filterAttribute, Object filterValue,
+                                             long afterId, int limit);
+}
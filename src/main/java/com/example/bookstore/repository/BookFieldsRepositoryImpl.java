@@ -0,0 +1,68 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * پیاده‌سازی fragment با Criteria tuple query
+ */
+public class BookFieldsRepositoryImpl implements BookFieldsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findBookFields(FieldSelection fields, String filterAttribute, Object filterValue,
+                                                    long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+
+        // author.id همان ستون author_id است و JOIN نمی‌خواهد
+        Join<Book, Author> author = fields.contains("authorName") ? book.join("author") : null;
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields.getFields()) {
+            selections.add(select(cb, book, author, field).alias(field));
+        }
+        query.multiselect(selections);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.greaterThan(book.get("id"), afterId));
+        if (filterAttribute != null) {
+            where.add(cb.equal(attribute(book, filterAttribute), filterValue));
+        }
+        query.where(where.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(book.get("id")));
+
+        return FieldSelection.toMaps(entityManager.createQuery(query).setMaxResults(limit).getResultList());
+    }
+
+    private static Selection<?> select(CriteriaBuilder cb, Root<Book> book, Join<Book, Author> author, String field) {
+        if ("authorName".equals(field)) {
+            return cb.concat(cb.concat(author.<String>get("firstName"), " "), author.<String>get("lastName"));
+        }
+        return attribute(book, field);
+    }
+
+    private static Path<?> attribute(Root<Book> book, String field) {
+        if ("authorId".equals(field)) {
+            return book.get("author").get("id");
+        }
+        return book.get(field);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.BookLoan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookLoanRepository extends JpaRepository<BookLoan, Long> {
+
+    // keyset روی index (book_id, id)؛ ترتیب id همان ترتیب رویدادهاست
+    @Query("SELECT l FROM BookLoan l WHERE l.bookId = :bookId AND l.id > :afterId ORDER BY l.id")
+    List<BookLoan> findByBook(Long bookId, Long afterId, Pageable limit);
+
+    // بازپخش journal: ردیف‌هایی که پیش از توقف برنامه نوشته شده بودند دوباره درج نمی‌شوند
+    @Query("SELECT l.id FROM BookLoan l WHERE l.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.repository.BookRepository.BookRow;
+
+import java.util.List;
+
+/**
+ * fragment مخزن کتاب برای جستجوی ترکیبی: فقط فیلترهای داده‌شده در WHERE می‌آیند و همه در یک SELECT
+ * نکته: صفحه‌بندی keyset روی (ستون مرتب‌سازی، id)؛ afterId برابر null یعنی صفحه اول
+ */
+public interface BookQueryRepository {
+
+    List<BookRow> queryBookRows(BookQueryDTO query, Object afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,160 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookSortField;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.repository.BookRepository.BookRow;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * پیاده‌سازی fragment با Criteria؛ خروجی همان BookRow کوئری‌های ثابت است
+ * نکته: شرط keyset فرض می‌کند NULL کوچک‌ترین مقدار است (رفتار پیش‌فرض MySQL و H2)، یعنی در ASC اول و در DESC آخر
+ */
+public class BookQueryRepositoryImpl implements BookQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookRow> queryBookRows(BookQueryDTO query, Object afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
+        Root<Book> book = criteria.from(Book.class);
+        Join<Book, Author> author = book.join("author");
+
+        criteria.multiselect(
+                book.get("id").alias("id"),
+                book.get("title").alias("title"),
+                book.get("isbn").alias("isbn"),
+                book.get("category").alias("category"),
+                book.get("status").alias("status"),
+                book.get("price").alias("price"),
+                book.get("pageCount").alias("pageCount"),
+                book.get("publicationDate").alias("publicationDate"),
+                author.get("id").alias("authorId"),
+                author.get("firstName").alias("authorFirstName"),
+                author.get("lastName").alias("authorLastName"),
+                book.get("version").alias("version"));
+
+        List<Predicate> where = filters(cb, book, query);
+        BookSortField sort = query.getSort();
+        boolean ascending = query.getDirection() == Sort.Direction.ASC;
+        if (afterId != null) {
+            where.add(keyset(cb, book, sort, ascending, afterValue, afterId));
+        }
+        criteria.where(where.toArray(new Predicate[0]));
+
+        Path<Object> sortColumn = book.get(sort.getProperty());
+        Path<Object> id = book.get("id");
+        if (sort == BookSortField.ID) {
+            criteria.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            criteria.orderBy(ascending ? cb.asc(sortColumn) : cb.desc(sortColumn),
+                    ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        return entityManager.createQuery(criteria).setMaxResults(limit).getResultList().stream()
+                .map(TupleBookRow::new)
+                .collect(Collectors.toList());
+    }
+
+    // author.id همان ستون author_id است؛ JOIN فقط برای نام نویسنده در خروجی است
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<Book> book, BookQueryDTO query) {
+        List<Predicate> where = new ArrayList<>();
+        if (query.getCategory() != null && !query.getCategory().isEmpty()) {
+            where.add(book.get("category").in(query.getCategory()));
+        }
+        if (query.getStatus() != null && !query.getStatus().isEmpty()) {
+            where.add(book.get("status").in(query.getStatus()));
+        }
+        if (query.getAuthorId() != null) {
+            where.add(cb.equal(book.get("author").get("id"), query.getAuthorId()));
+        }
+        Path<BigDecimal> price = book.get("price");
+        if (query.getMinPrice() != null) {
+            where.add(cb.greaterThanOrEqualTo(price, query.getMinPrice()));
+        }
+        if (query.getMaxPrice() != null) {
+            where.add(cb.lessThanOrEqualTo(price, query.getMaxPrice()));
+        }
+        Path<LocalDate> publicationDate = book.get("publicationDate");
+        if (query.getPublishedFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(publicationDate, query.getPublishedFrom()));
+        }
+        if (query.getPublishedTo() != null) {
+            where.add(cb.lessThanOrEqualTo(publicationDate, query.getPublishedTo()));
+        }
+        return where;
+    }
+
+    /**
+     * ردیف‌های بعد از (afterValue, afterId) در همان جهت مرتب‌سازی
+     * ASC:  col > v OR (col = v AND id > lastId)            |  v = NULL: (col IS NULL AND id > lastId) OR col IS NOT NULL
+     * DESC: col < v OR (col = v AND id < lastId) OR col IS NULL  |  v = NULL: col IS NULL AND id < lastId
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate keyset(CriteriaBuilder cb, Root<Book> book, BookSortField sort, boolean ascending,
+                                    Object afterValue, long afterId) {
+        Expression<Long> id = book.get("id");
+        Predicate idAfter = ascending ? cb.greaterThan(id, afterId) : cb.lessThan(id, afterId);
+        if (sort == BookSortField.ID) {
+            return idAfter;
+        }
+
+        Expression<Comparable> column = book.get(sort.getProperty());
+        if (afterValue == null) {
+            Predicate sameNull = cb.and(cb.isNull(column), idAfter);
+            return ascending ? cb.or(sameNull, cb.isNotNull(column)) : sameNull;
+        }
+
+        Comparable value = (Comparable) afterValue;
+        Predicate beyond = ascending ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+        Predicate tie = cb.and(cb.equal(column, value), idAfter);
+        if (!ascending && sort.isNullable()) {
+            return cb.or(beyond, tie, cb.isNull(column));
+        }
+        return cb.or(beyond, tie);
+    }
+
+    // Tuple با همان aliasهای BOOK_ROW_SELECT
+    private static class TupleBookRow implements BookRow {
+
+        private final Tuple tuple;
+
+        TupleBookRow(Tuple tuple) {
+            this.tuple = tuple;
+        }
+
+        @Override public Long getId() { return tuple.get("id", Long.class); }
+        @Override public String getTitle() { return tuple.get("title", String.class); }
+        @Override public String getIsbn() { return tuple.get("isbn", String.class); }
+        @Override public BookCategory getCategory() { return tuple.get("category", BookCategory.class); }
+        @Override public BookStatus getStatus() { return tuple.get("status", BookStatus.class); }
+        @Override public BigDecimal getPrice() { return tuple.get("price", BigDecimal.class); }
+        @Override public Integer getPageCount() { return tuple.get("pageCount", Integer.class); }
+        @Override public LocalDate getPublicationDate() { return tuple.get("publicationDate", LocalDate.class); }
+        @Override public Long getAuthorId() { return tuple.get("authorId", Long.class); }
+        @Override public String getAuthorFirstName() { return tuple.get("authorFirstName", String.class); }
+        @Override public String getAuthorLastName() { return tuple.get("authorLastName", String.class); }
+        @Override public Long getVersion() { return tuple.get("version", Long.class); }
+    }
+}
@@ -3,33 +3,104 @@ package com.example.bookstore.repository;
 import com.example.bookstore.entity.Book;
 import com.example.bookstore.enums.BookCategory;
 import com.example.bookstore.enums.BookStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookFieldsRepository,
+        BookQueryRepository, BookStatsRepository {
+
+    // تعداد ردیف‌هایی که درایور در هر رفت‌وبرگشت از cursor سرور می‌خواند (نیازمند useCursorFetch=true)
+    int EXPORT_FETCH_SIZE = 1000;
 
     // derived queries
     Optional<Book> findByIsbn(String isbn);
 
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    List<Book> findByPriceBetween(Double minPrice, Double maxPrice);
 
-    List<Book> findByCategory(BookCategory category);
+    boolean existsByIsbn(String isbn);
 
-    List<Book> findByStatus(BookStatus status);
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(Collection<String> isbns);
 
-    List<Book> findByAuthorId(Long authorId);
+    // پیمایش keyset همه شابک‌ها برای ساخت فیلتر وجود کلید
+    interface IsbnKey {
+        Long getId();
+        String getIsbn();
+    }
 
-    List<Book> findByPriceBetween(Double minPrice, Double maxPrice);
+    @Query("SELECT b.id as id, b.isbn as isbn FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<IsbnKey> findIsbnKeys(Long afterId, Pageable limit);
+
+    @Query("SELECT b.id as id, b.isbn as isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<IsbnKey> findIsbnKeysByIsbnIn(Collection<String> isbns);
+
+    // ستون‌های index شمارش facet؛ بدون JOIN نویسنده
+    interface FacetKey {
+        Long getId();
+        BookCategory getCategory();
+        BookStatus getStatus();
+        BigDecimal getPrice();
+    }
+
+    @Query("SELECT b.id as id, b.category as category, b.status as status, b.price as price " +
+            "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<FacetKey> findFacetKeys(Long afterId, Pageable limit);
+
+    @Query("SELECT b.id as id, b.category as category, b.status as status, b.price as price " +
+            "FROM Book b WHERE b.id IN :ids")
+    List<FacetKey> findFacetKeysByIdIn(Collection<Long> ids);
+
+    // شمارش موجودی به تفکیک دسته‌بندی و وضعیت برای آشتی شمارنده‌های درون حافظه
+    interface InventoryCount {
+        BookCategory getCategory();
+        BookStatus getStatus();
+        Long getCount();
+    }
+
+    @Query("SELECT b.category as category, b.status as status, COUNT(b) as count " +
+            "FROM Book b GROUP BY b.category, b.status")
+    List<InventoryCount> countInventory();
 
     // JPQL با join
     @Query("SELECT b FROM Book b JOIN b.author a WHERE a.id = :authorId AND b.category = :category")
     List<Book> findByAuthorAndCategory(Long authorId, BookCategory category);
 
+    // UPDATE شرطی اتمیک: فقط اگر وضعیت فعلی همان from باشد تغییر می‌کند؛ تعداد ردیف‌ها برنده را مشخص می‌کند
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.status = :to, b.version = b.version + 1, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.status = :from")
+    int transitionStatus(Long id, BookStatus from, BookStatus to, LocalDateTime now);
+
+    @Query("SELECT b.status FROM Book b WHERE b.id = :id")
+    Optional<BookStatus> findStatusById(Long id);
+
+    // stream فقط‌جلو روی ResultSet؛ باید داخل تراکنش مصرف و بسته شود
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b JOIN FETCH b.author ORDER BY b.id")
+    Stream<Book> streamAllForExport();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(b) FROM Book b WHERE b.author.id = :authorId")
     Long countBooksByAuthor(Long authorId);
 
@@ -46,4 +117,77 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             "a.firstName as authorFirstName, a.lastName as authorLastName " +
             "FROM Book b JOIN b.author a WHERE b.category = :category")
     List<BookSummary> findBookSummariesByCategory(BookCategory category);
-}
\ No newline at end of file
+
+    // projection کامل یک ردیف BookDTO به همراه نام نویسنده - با یک JOIN و بدون lazy load
+    interface BookRow {
+        Long getId();
+        String getTitle();
+        String getIsbn();
+        BookCategory getCategory();
+        BookStatus getStatus();
+        BigDecimal getPrice();
+        Integer getPageCount();
+        LocalDate getPublicationDate();
+        Long getAuthorId();
+        String getAuthorFirstName();
+        String getAuthorLastName();
+        Long getVersion();
+    }
+
+    String BOOK_ROW_SELECT = "SELECT b.id as id, b.title as title, b.isbn as isbn, b.category as category, " +
+            "b.status as status, b.price as price, b.pageCount as pageCount, " +
+            "b.publicationDate as publicationDate, a.id as authorId, " +
+            "a.firstName as authorFirstName, a.lastName as authorLastName, b.version as version " +
+            "FROM Book b JOIN b.author a ";
+
+    @Query(BOOK_ROW_SELECT + "WHERE b.id IN :ids")
+    List<BookRow> findBookRowsByIdIn(Collection<Long> ids);
+
+    // keyset pagination: فقط ردیف‌های بعد از آخرین id دیده‌شده، بدون OFFSET
+    @Query(BOOK_ROW_SELECT + "WHERE b.id > :afterId ORDER BY b.id")
+    List<BookRow> findBookRows(Long afterId, Pageable limit);
+
+    // query cache: نتایج enum-keyed تا اولین تغییر جدول books در cache می‌مانند
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(BOOK_ROW_SELECT + "WHERE b.category = :category AND b.id > :afterId ORDER BY b.id")
+    List<BookRow> findBookRowsByCategory(BookCategory category, Long afterId, Pageable limit);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(BOOK_ROW_SELECT + "WHERE b.status = :status AND b.id > :afterId ORDER BY b.id")
+    List<BookRow> findBookRowsByStatus(BookStatus status, Long afterId, Pageable limit);
+
+    @Query(BOOK_ROW_SELECT + "WHERE a.id = :authorId AND b.id > :afterId ORDER BY b.id")
+    List<BookRow> findBookRowsByAuthor(Long authorId, Long afterId, Pageable limit);
+
+    // نسخه برای GET شرطی: زمان آخرین تغییر کتاب و نویسنده‌اش، بدون بارگذاری entity
+    interface BookVersion {
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getAuthorUpdatedAt();
+    }
+
+    @Query("SELECT b.updatedAt as updatedAt, a.updatedAt as authorUpdatedAt " +
+            "FROM Book b JOIN b.author a WHERE b.id = :id")
+    Optional<BookVersion> findVersionById(Long id);
+
+    // نسخه تجمیعی یک فهرست: max(updated_at) کتاب‌ها و نویسندگان به همراه تعداد ردیف‌ها
+    interface ListVersion {
+        LocalDateTime getLastModified();
+        LocalDateTime getAuthorLastModified();
+        Long getCount();
+    }
+
+    String LIST_VERSION_SELECT = "SELECT MAX(b.updatedAt) as lastModified, " +
+            "MAX(a.updatedAt) as authorLastModified, COUNT(b.id) as count FROM Book b JOIN b.author a ";
+
+    @Query(LIST_VERSION_SELECT)
+    ListVersion findListVersion();
+
+    @Query(LIST_VERSION_SELECT + "WHERE b.category = :category")
+    ListVersion findListVersionByCategory(BookCategory category);
+
+    @Query(LIST_VERSION_SELECT + "WHERE b.status = :status")
+    ListVersion findListVersionByStatus(BookStatus status);
+
+    @Query(LIST_VERSION_SELECT + "WHERE a.id = :authorId")
+    ListVersion findListVersionByAuthor(Long authorId);
+}
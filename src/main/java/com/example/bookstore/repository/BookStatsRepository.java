@@ -0,0 +1,18 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.dto.BookStatsRowDTO;
+import com.example.bookstore.enums.BookStatsDimension;
+
+import java.util.List;
+
+/**
+ * fragment مخزن کتاب برای آمار: ابعاد داده‌شده به یک SELECT ... GROUP BY ترجمه می‌شوند
+ * نکته: فقط ردیف‌های تجمیعی از دیتابیس برمی‌گردند و هیچ entity بارگذاری نمی‌شود
+ */
+public interface BookStatsRepository {
+
+    // نتیجه در region جداگانه query cache با TTL کوتاه نگه داشته می‌شود
+    String STATS_CACHE_REGION = "stats-query-results";
+
+    List<BookStatsRowDTO> aggregateBooks(List<BookStatsDimension> groupBy);
+}
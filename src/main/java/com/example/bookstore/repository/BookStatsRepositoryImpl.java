@@ -0,0 +1,143 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.dto.BookStatsRowDTO;
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatsDimension;
+import com.example.bookstore.enums.BookStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
+/**
+ * پیاده‌سازی fragment با Criteria؛ هر بعد یک ستون در SELECT و GROUP BY و ORDER BY است
+ * نکته: query cache هیبرنیت با هر تغییر جدول books (و authors برای بعد AUTHOR) خودش باطل می‌شود،
+ * پس TTL فقط برای محدود نگه داشتن حافظه است و نتیجه کهنه برنمی‌گردد
+ */
+public class BookStatsRepositoryImpl implements BookStatsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookStatsRowDTO> aggregateBooks(List<BookStatsDimension> groupBy) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
+        Root<Book> book = criteria.from(Book.class);
+
+        List<Selection<?>> select = new ArrayList<>();
+        List<Expression<?>> groups = new ArrayList<>();
+        for (BookStatsDimension dimension : groupBy) {
+            switch (dimension) {
+                case CATEGORY:
+                    groups.add(book.get("category"));
+                    select.add(book.get("category").alias("category"));
+                    break;
+                case STATUS:
+                    groups.add(book.get("status"));
+                    select.add(book.get("status").alias("status"));
+                    break;
+                case AUTHOR:
+                    // نام‌ها هم در GROUP BY می‌آیند تا بدون کوئری دوم در خروجی باشند
+                    Join<Book, Author> author = book.join("author");
+                    groups.add(author.get("id"));
+                    groups.add(author.get("firstName"));
+                    groups.add(author.get("lastName"));
+                    select.add(author.get("id").alias("authorId"));
+                    select.add(author.get("firstName").alias("authorFirstName"));
+                    select.add(author.get("lastName").alias("authorLastName"));
+                    break;
+                case YEAR:
+                    Expression<Integer> year = cb.function("year", Integer.class, book.get("publicationDate"));
+                    groups.add(year);
+                    select.add(year.alias("year"));
+                    break;
+            }
+        }
+
+        Expression<BigDecimal> price = book.get("price");
+        Expression<Integer> pageCount = book.get("pageCount");
+        select.add(cb.count(book).alias("count"));
+        select.add(cb.sum(price).alias("priceSum"));
+        select.add(cb.avg(price).alias("priceAvg"));
+        select.add(cb.min(price).alias("priceMin"));
+        select.add(cb.max(price).alias("priceMax"));
+        select.add(cb.sumAsLong(pageCount).alias("pageCountSum"));
+        select.add(cb.avg(pageCount).alias("pageCountAvg"));
+
+        criteria.multiselect(select);
+        if (!groups.isEmpty()) {
+            List<Order> order = new ArrayList<>(groups.size());
+            for (Expression<?> group : groups) {
+                order.add(cb.asc(group));
+            }
+            criteria.groupBy(groups).orderBy(order);
+        }
+
+        List<Tuple> tuples = entityManager.createQuery(criteria)
+                .setHint(HINT_CACHEABLE, true)
+                .setHint(HINT_CACHE_REGION, STATS_CACHE_REGION)
+                .getResultList();
+        List<BookStatsRowDTO> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(toRow(tuple, groupBy));
+        }
+        return rows;
+    }
+
+    private static BookStatsRowDTO toRow(Tuple tuple, List<BookStatsDimension> groupBy) {
+        Map<String, Object> group = new LinkedHashMap<>();
+        for (BookStatsDimension dimension : groupBy) {
+            switch (dimension) {
+                case CATEGORY:
+                    group.put("category", tuple.get("category", BookCategory.class));
+                    break;
+                case STATUS:
+                    group.put("status", tuple.get("status", BookStatus.class));
+                    break;
+                case AUTHOR:
+                    group.put("authorId", tuple.get("authorId", Long.class));
+                    group.put("authorName", tuple.get("authorFirstName", String.class) + " "
+                            + tuple.get("authorLastName", String.class));
+                    break;
+                case YEAR:
+                    group.put("year", tuple.get("year", Integer.class));
+                    break;
+            }
+        }
+
+        BookStatsRowDTO row = new BookStatsRowDTO();
+        row.setGroup(group);
+        row.setCount(tuple.get("count", Long.class));
+        row.setPriceSum(tuple.get("priceSum", BigDecimal.class));
+        row.setPriceAvg(scaled(tuple.get("priceAvg", Double.class), 2));
+        row.setPriceMin(tuple.get("priceMin", BigDecimal.class));
+        row.setPriceMax(tuple.get("priceMax", BigDecimal.class));
+        row.setPageCountSum(tuple.get("pageCountSum", Long.class));
+        row.setPageCountAvg(scaled(tuple.get("pageCountAvg", Double.class), 1));
+        return row;
+    }
+
+    // AVG در JPA همیشه Double است؛ برای خروجی به BigDecimal با دقت ثابت گرد می‌شود
+    private static BigDecimal scaled(Double value, int scale) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
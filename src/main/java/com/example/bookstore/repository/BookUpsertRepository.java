@@ -0,0 +1,243 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.enums.BookStatus;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * upsert کتاب بر اساس شابک با یک دستور SQL
+ * نکته: روی MySQL از INSERT ... ON DUPLICATE KEY UPDATE و روی بقیه دیتابیس‌ها از MERGE استفاده می‌شود؛
+ * شناسه ردیف جدید از پیش از sequence گرفته می‌شود و وضعیت امانت (status) فقط هنگام ایجاد نوشته می‌شود
+ */
+@Repository
+public class BookUpsertRepository {
+
+    private static final String COLUMNS = "id, title, isbn, category, status, price, page_count, " +
+            "publication_date, author_id, created_at, updated_at, version";
+
+    // LAST_INSERT_ID(id) شناسه ردیف موجود را به عنوان generated key برمی‌گرداند؛ تعداد ردیف ۱ یعنی INSERT و ۲ یعنی UPDATE
+    private static final String MYSQL_UPSERT = "INSERT INTO books (" + COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), title = VALUES(title), category = VALUES(category), " +
+            "price = VALUES(price), page_count = VALUES(page_count), publication_date = VALUES(publication_date), " +
+            "author_id = VALUES(author_id), updated_at = VALUES(updated_at), version = version + 1";
+
+    private static final String MERGE_UPSERT = "MERGE INTO books b USING (SELECT CAST(? AS VARCHAR(13)) AS isbn) s ON (b.isbn = s.isbn) " +
+            "WHEN MATCHED THEN UPDATE SET title = ?, category = ?, price = ?, page_count = ?, " +
+            "publication_date = ?, author_id = ?, updated_at = ?, version = b.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookRepository bookRepository;
+    private final boolean mysql;
+
+    @Autowired
+    public BookUpsertRepository(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                                BookRepository bookRepository) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookRepository = bookRepository;
+        this.mysql = sessionFactory.getJdbcServices().getDialect() instanceof MySQLDialect;
+    }
+
+    /**
+     * درج یا به‌روزرسانی یک کتاب؛ روی MySQL فقط یک رفت‌وبرگشت
+     */
+    public Result upsert(Book book) {
+        long newId = nextId();
+        LocalDateTime now = LocalDateTime.now();
+
+        Result result;
+        if (mysql) {
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            int count = jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(MYSQL_UPSERT, Statement.RETURN_GENERATED_KEYS);
+                bindInsert(ps, 1, newId, book, now);
+                return ps;
+            }, keys);
+            // درایور برای ON DUPLICATE KEY ممکن است چند کلید متوالی گزارش کند؛ اولی شناسه واقعی است
+            result = count == 1
+                    ? new Result(newId, book.getIsbn(), true)
+                    : new Result(((Number) keys.getKeyList().get(0).values().iterator().next()).longValue(),
+                    book.getIsbn(), false);
+        } else {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(MERGE_UPSERT);
+                bindMerge(ps, newId, book, now);
+                return ps;
+            });
+            // MERGE تعداد ردیف را بدون تفکیک INSERT/UPDATE می‌دهد؛ شناسه پیش‌ساخته یعنی ردیف جدید
+            Long id = jdbcTemplate.queryForObject("SELECT id FROM books WHERE isbn = ?", Long.class, book.getIsbn());
+            result = new Result(id, book.getIsbn(), id == newId);
+        }
+
+        evictAfterCommit(List.of(result.getId()));
+        return result;
+    }
+
+    /**
+     * upsert دسته‌ای با JDBC batch و سپس SELECT با IN برای تشخیص ایجاد یا به‌روزرسانی هر شابک
+     * نکته: شابک‌ها در books باید یکتا باشند؛ تکرار داخل دسته را فراخواننده رد می‌کند
+     */
+    public List<Result> upsertAll(List<Book> books, int batchSize) {
+        List<Long> newIds = new ArrayList<>(books.size());
+        List<Integer> positions = new ArrayList<>(books.size());
+        List<String> isbns = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            newIds.add(nextId());
+            positions.add(i);
+            isbns.add(books.get(i).getIsbn());
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate(mysql ? MYSQL_UPSERT : MERGE_UPSERT, positions, batchSize, (ps, i) -> {
+            if (mysql) {
+                bindInsert(ps, 1, newIds.get(i), books.get(i), now);
+            } else {
+                bindMerge(ps, newIds.get(i), books.get(i), now);
+            }
+        });
+
+        Map<String, Long> idsByIsbn = new HashMap<>();
+        for (int from = 0; from < isbns.size(); from += batchSize) {
+            for (BookRepository.IsbnKey key : bookRepository.findIsbnKeysByIsbnIn(
+                    isbns.subList(from, Math.min(from + batchSize, isbns.size())))) {
+                idsByIsbn.put(key.getIsbn(), key.getId());
+            }
+        }
+
+        List<Result> results = new ArrayList<>(books.size());
+        List<Long> ids = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            String isbn = books.get(i).getIsbn();
+            long id = idsByIsbn.get(isbn);
+            results.add(new Result(id, isbn, id == newIds.get(i)));
+            ids.add(id);
+        }
+        evictAfterCommit(ids);
+        return results;
+    }
+
+    // شناسه از بلوک pooled-lo در حافظه؛ فقط هر ID_BLOCK_SIZE شناسه یک بار به sequence می‌رود
+    private long nextId() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        return ((Number) sessionFactory.getMetamodel().entityPersister(Book.class)
+                .getIdentifierGenerator().generate(session, null)).longValue();
+    }
+
+    // cache سطح دوم از این دستورها خبر ندارد؛ ردیف‌ها و query cache همین حالا و دوباره بعد از commit پاک می‌شوند
+    private void evictAfterCommit(Collection<Long> ids) {
+        evict(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(ids);
+                }
+            });
+        }
+    }
+
+    private void evict(Collection<Long> ids) {
+        for (Long id : ids) {
+            sessionFactory.getCache().evictEntityData(Book.class, id);
+        }
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    private static int bindInsert(PreparedStatement ps, int index, long id, Book book, LocalDateTime now)
+            throws SQLException {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        BookStatus status = book.getStatus() != null ? book.getStatus() : BookStatus.AVAILABLE;
+        ps.setLong(index++, id);
+        ps.setString(index++, book.getTitle());
+        ps.setString(index++, book.getIsbn());
+        ps.setString(index++, book.getCategory().name());
+        ps.setString(index++, status.name());
+        index = bindDetails(ps, index, book);
+        ps.setTimestamp(index++, timestamp);
+        ps.setTimestamp(index++, timestamp);
+        return index;
+    }
+
+    private static void bindMerge(PreparedStatement ps, long id, Book book, LocalDateTime now) throws SQLException {
+        int index = 1;
+        ps.setString(index++, book.getIsbn());
+        ps.setString(index++, book.getTitle());
+        ps.setString(index++, book.getCategory().name());
+        index = bindDetails(ps, index, book);
+        ps.setTimestamp(index++, Timestamp.valueOf(now));
+        bindInsert(ps, index, id, book, now);
+    }
+
+    // price, page_count, publication_date, author_id
+    private static int bindDetails(PreparedStatement ps, int index, Book book) throws SQLException {
+        BigDecimal price = book.getPrice();
+        if (price != null) {
+            ps.setBigDecimal(index++, price);
+        } else {
+            ps.setNull(index++, Types.DECIMAL);
+        }
+        if (book.getPageCount() != null) {
+            ps.setInt(index++, book.getPageCount());
+        } else {
+            ps.setNull(index++, Types.INTEGER);
+        }
+        if (book.getPublicationDate() != null) {
+            ps.setDate(index++, Date.valueOf(book.getPublicationDate()));
+        } else {
+            ps.setNull(index++, Types.DATE);
+        }
+        ps.setLong(index++, book.getAuthor().getId());
+        return index;
+    }
+
+    /**
+     * نتیجه upsert یک شابک: شناسه ردیف و این‌که ایجاد شده یا به‌روزرسانی
+     */
+    public static class Result {
+
+        private final long id;
+        private final String isbn;
+        private final boolean created;
+
+        public Result(long id, String isbn, boolean created) {
+            this.id = id;
+            this.isbn = isbn;
+            this.created = created;
+        }
+
+        public long getId() { return id; }
+        public String getIsbn() { return isbn; }
+        public boolean isCreated() { return created; }
+    }
+}
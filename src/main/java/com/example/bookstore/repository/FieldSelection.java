@@ -0,0 +1,67 @@
+package com.example.bookstore.repository;
+
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * مجموعه فیلدهای درخواستی (پارامتر fields=) برای projectionهای پویا
+ * نکته: id همیشه انتخاب می‌شود چون کلید cursor صفحه‌بندی keyset است؛ ترتیب فیلدها همان ترتیب درخواست است
+ */
+public final class FieldSelection {
+
+    public static final String ID = "id";
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * فهرست جداشده با کاما؛ فیلد ناشناخته خطای 400 می‌دهد
+     */
+    public static FieldSelection parse(String fields, Set<String> available) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!available.contains(name)) {
+                throw new IllegalArgumentException("فیلد " + name + " وجود ندارد. فیلدهای مجاز: " +
+                        String.join(", ", available));
+            }
+            selected.add(name);
+        }
+        return new FieldSelection(selected);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    // ستون‌های tuple با alias همان نام فیلد به یک map مرتب برای serialize فقط همین فیلدها
+    static List<Map<String, Object>> toMaps(List<Tuple> tuples) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
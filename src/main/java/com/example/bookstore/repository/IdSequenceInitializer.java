@@ -0,0 +1,75 @@
+package com.example.bookstore.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * هم‌ترازی sequenceهای شناسه با داده‌های موجود
+ * نکته: جدول‌هایی که قبلاً با AUTO_INCREMENT پر شده‌اند (یا با data.sql) شناسه دارند ولی sequence از ۱ شروع می‌شود؛
+ * پیش از باز شدن پورت HTTP مقدار بعدی sequence به max(id) + 1 رسانده می‌شود تا INSERT تکراری رخ ندهد
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // ستون پیش‌فرض TableStructure در Hibernate (روی دیتابیس‌های بدون sequence مثل MySQL)
+    private static final String TABLE_VALUE_COLUMN = "next_val";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdSequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            IdentifierGenerator generator = persister.getIdentifierGenerator();
+            if (generator instanceof SequenceStyleGenerator && persister instanceof AbstractEntityPersister) {
+                align((AbstractEntityPersister) persister, ((SequenceStyleGenerator) generator).getDatabaseStructure(),
+                        dialect);
+            }
+        }
+    }
+
+    private void align(AbstractEntityPersister persister, DatabaseStructure structure, Dialect dialect) {
+        String table = persister.getTableName();
+        String sequence = structure.getPhysicalName().render();
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(" + persister.getIdentifierColumnNames()[0] + "), 0) FROM " + table, Long.class);
+        long next = (maxId == null ? 0L : maxId) + 1;
+
+        if (structure.isPhysicalSequence()) {
+            Long current = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class);
+            if (current != null && current < next) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+                log.info("Sequence {} advanced to {} (max id of {})", sequence, next, table);
+            }
+        } else {
+            int updated = jdbcTemplate.update("UPDATE " + sequence + " SET " + TABLE_VALUE_COLUMN + " = ? WHERE " +
+                    TABLE_VALUE_COLUMN + " < ?", next, next);
+            if (updated > 0) {
+                log.info("Sequence table {} advanced to {} (max id of {})", sequence, next, table);
+            }
+        }
+    }
+}
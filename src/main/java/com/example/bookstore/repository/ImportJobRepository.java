@@ -0,0 +1,15 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.ImportJob;
+import com.example.bookstore.enums.ImportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findByStatusIn(Collection<ImportJobStatus> statuses);
+}
@@ -0,0 +1,17 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.ImportRowError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportRowErrorRepository extends JpaRepository<ImportRowError, Long> {
+
+    // keyset روی index (job_id, id)
+    @Query("SELECT e FROM ImportRowError e WHERE e.jobId = :jobId AND e.id > :afterId ORDER BY e.id")
+    List<ImportRowError> findByJob(Long jobId, Long afterId, Pageable limit);
+}
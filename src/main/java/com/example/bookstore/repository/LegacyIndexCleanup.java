@@ -0,0 +1,120 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * حذف indexهای قدیمی که ddl-auto=update پاک نمی‌کند
+ * نکته: update فقط index و unique جدید می‌سازد؛ روی دیتابیس موجود unique قدیمی با نام خودکار Hibernate
+ * (از unique = true ستون) کنار uk_books_isbn و uk_authors_email می‌ماند و هر INSERT دو index یکتا را نگه می‌دارد،
+ * و idx_books_author که با idx_books_author_publication جایگزین شده هم باقی می‌ماند.
+ * فقط روی MySQL (پیکربندی اصلی با update)؛ H2 تست‌ها با create ساخته می‌شود و index قدیمی ندارد
+ */
+@Component
+public class LegacyIndexCleanup implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyIndexCleanup.class);
+
+    // indexهای حذف‌شده از entityها؛ پیشوند ستون‌هایشان در index جدیدتری هست (کلید خارجی author_id هم پوشش دارد)
+    private static final Map<String, Set<String>> RETIRED_INDEXES = Map.of(
+            "books", Set.of("idx_books_author"));
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LegacyIndexCleanup(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (!(dialect instanceof MySQLDialect)) {
+            return;
+        }
+        dropLegacyUnique("books", "isbn", Book.ISBN_CONSTRAINT);
+        dropLegacyUnique("authors", "email", Author.EMAIL_CONSTRAINT);
+        RETIRED_INDEXES.forEach((table, names) -> {
+            for (String name : indexes(table).keySet()) {
+                if (names.contains(name.toLowerCase(Locale.ROOT))) {
+                    drop(table, name);
+                }
+            }
+        });
+    }
+
+    // هر index یکتای دیگری فقط روی همین ستون، جز قید نام‌دار فعلی
+    private void dropLegacyUnique(String table, String column, String keep) {
+        for (Map.Entry<String, Index> index : indexes(table).entrySet()) {
+            String name = index.getKey();
+            if (index.getValue().unique && index.getValue().columns.equals(List.of(column))
+                    && !name.equalsIgnoreCase(keep) && !name.equalsIgnoreCase("PRIMARY")) {
+                drop(table, name);
+            }
+        }
+    }
+
+    // خطا فقط ثبت می‌شود؛ index اضافه کارایی را کم می‌کند ولی نباید جلوی بالا آمدن برنامه را بگیرد
+    private void drop(String table, String name) {
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX `" + name + "`");
+            log.info("Dropped legacy index {} on {}", name, table);
+        } catch (DataAccessException ex) {
+            log.warn("Could not drop legacy index {} on {}: {}", name, table, ex.getMessage());
+        }
+    }
+
+    private Map<String, Index> indexes(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, Index>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, Index> indexes = new LinkedHashMap<>();
+            try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (rows.next()) {
+                    String name = rows.getString("INDEX_NAME");
+                    if (name == null) {
+                        continue;
+                    }
+                    Index index = indexes.computeIfAbsent(name, n -> new Index());
+                    index.unique = !rows.getBoolean("NON_UNIQUE");
+                    index.positions.put(rows.getInt("ORDINAL_POSITION"),
+                            rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            for (Index index : indexes.values()) {
+                index.columns = new ArrayList<>(index.positions.values());
+            }
+            return indexes;
+        });
+    }
+
+    private static final class Index {
+
+        boolean unique;
+        final Map<Integer, String> positions = new TreeMap<>();
+        List<String> columns;
+    }
+}
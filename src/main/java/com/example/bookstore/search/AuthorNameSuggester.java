@@ -0,0 +1,137 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.AuthorSuggestionDTO;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * پیشنهاد خودکار نام نویسنده از یک ساختار مرتب درون‌حافظه‌ای
+ * نکته: هر نویسنده با دو کلید «نام نام‌خانوادگی» و «نام‌خانوادگی نام» نرمال‌شده ذخیره می‌شود
+ * جستجوی پیشوند یک subMap روی skip list است؛ خواندن بدون قفل و بدون رفتن به دیتابیس انجام می‌شود
+ */
+@Component
+public class AuthorNameSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorNameSuggester.class);
+
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final AuthorRepository authorRepository;
+
+    // کلید نرمال‌شده + جداکننده + id → id
+    private final ConcurrentSkipListMap<String, Long> keys = new ConcurrentSkipListMap<>();
+    // id → نام نمایشی و کلیدهای ثبت‌شده برای حذف
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AuthorNameSuggester(AuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        List<AuthorName> rows;
+        do {
+            rows = authorRepository.findAuthorNames(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (AuthorName row : rows) {
+                put(row.getId(), row.getFirstName(), row.getLastName());
+                afterId = row.getId();
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+        log.info("Author suggester loaded with {} authors", entries.size());
+    }
+
+    /**
+     * حداکثر limit نویسنده که نام یا نام خانوادگی آن‌ها با prefix شروع می‌شود، به ترتیب الفبایی
+     */
+    public List<AuthorSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = TextNormalizer.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        ConcurrentNavigableMap<String, Long> range =
+                keys.subMap(normalized, true, normalized + Character.MAX_VALUE, false);
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : range.values()) {
+            ids.add(id);
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+
+        List<AuthorSuggestionDTO> suggestions = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                suggestions.add(new AuthorSuggestionDTO(id, entry.fullName));
+            }
+        }
+        return suggestions;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getAuthorId());
+        } else if (event.isNameChanged()) {
+            AuthorDTO author = event.getCurrent();
+            put(author.getId(), author.getFirstName(), author.getLastName());
+        }
+    }
+
+    private synchronized void put(Long id, String firstName, String lastName) {
+        remove(id);
+        String forward = key(firstName + " " + lastName, id);
+        String reversed = key(lastName + " " + firstName, id);
+        entries.put(id, new Entry(firstName + " " + lastName, forward, reversed));
+        keys.put(forward, id);
+        keys.put(reversed, id);
+    }
+
+    private synchronized void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            keys.remove(previous.forwardKey);
+            keys.remove(previous.reversedKey);
+        }
+    }
+
+    private static String key(String name, Long id) {
+        return TextNormalizer.normalize(name) + KEY_SEPARATOR + id;
+    }
+
+    private static class Entry {
+
+        private final String fullName;
+        private final String forwardKey;
+        private final String reversedKey;
+
+        private Entry(String fullName, String forwardKey, String reversedKey) {
+            this.fullName = fullName;
+            this.forwardKey = forwardKey;
+            this.reversedKey = reversedKey;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bookstore.search;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter روی کلیدهای ۶۴ بیتی
+ * نکته: پاسخ «نیست» قطعی است و پاسخ «شاید هست» با احتمال خطای کنترل‌شده؛ حذف پشتیبانی نمی‌شود
+ * بیت‌ها با CAS تنظیم می‌شوند، پس خواندن و نوشتن همزمان بدون قفل امن است
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long capacity;
+
+    /**
+     * اندازه بهینه برای capacity کلید با نرخ خطای مثبت falsePositiveRate:
+     * m = -n·ln(p) / ln(2)²  و  k = (m/n)·ln(2)
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        long n = Math.max(1, capacity);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = wordCount * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    /**
+     * افزودن کلید؛ true اگر حداقل یک بیت تازه روشن شده باشد (یعنی کلید قطعاً جدید بوده)
+     */
+    public boolean put(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            changed |= setBit(Math.floorMod(h1 + i * h2, bitSize));
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // نرخ خطای مثبت مورد انتظار با پر بودن فعلی: (بیت‌های روشن / m)^k
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitSize, hashFunctions);
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        while (true) {
+            long word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(index, word, word | mask)) {
+                return true;
+            }
+        }
+    }
+
+    // finalizer الگوریتم MurmurHash3: پخش یکنواخت بیت‌های کلیدهای نزدیک به هم (مثل شابک‌های پشت سر هم)
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
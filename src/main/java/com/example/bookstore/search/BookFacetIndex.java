@@ -0,0 +1,415 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BookFacetsDTO;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.event.BookPricesChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.FacetKey;
+import com.example.bookstore.service.BatchSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * index بیتی درون‌حافظه برای شمارش facetهای دسته‌بندی، وضعیت و بازه قیمت
+ * نکته: برای هر مقدار یک BitSet با بیت شماره id کتاب؛ شمارش هر فیلتر AND چند bitmap و cardinality است
+ * شناسه‌ها از sequence پیوسته‌اند پس BitSet بدون فشرده‌سازی هم کوچک می‌ماند (حدود maxId/8 بایت برای هر مقدار)
+ * بعد از بالا آمدن برنامه از دیتابیس ساخته و با رویدادهای تغییر بعد از commit به‌روز می‌شود
+ */
+@Component
+public class BookFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookFacetIndex.class);
+
+    public static final String NO_PRICE = "none";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BigDecimal[] priceBoundaries;
+    private final List<String> priceLabels;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // همه با lock محافظت می‌شوند؛ touched فقط در حین ساخت دوباره null نیست
+    private Bitmaps bitmaps;
+    private Set<Long> touched;
+    // بارگذاری‌های دوباره در جریان؛ هر کدام فقط idهایی را اعمال می‌کند که از شروع خواندنش تغییر تازه‌تری نگرفته‌اند
+    private final List<Reload> reloads = new ArrayList<>();
+    private long reloadSequence;
+
+    @Autowired
+    public BookFacetIndex(BookRepository bookRepository,
+                          @Value("${bookstore.facets.price-buckets:10,20,50,100}") BigDecimal[] priceBoundaries) {
+        this.bookRepository = bookRepository;
+        this.priceBoundaries = priceBoundaries.clone();
+        Arrays.sort(this.priceBoundaries);
+        this.priceLabels = labelsOf(this.priceBoundaries);
+        this.bitmaps = new Bitmaps(priceLabels.size());
+    }
+
+    public List<String> getPriceLabels() {
+        return priceLabels;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long loaded = rebuild();
+        log.info("Facet index loaded with {} books", loaded);
+    }
+
+    // آشتی دوره‌ای با دیتابیس برای تغییراتی که بدون رویداد انجام شده‌اند
+    @Scheduled(fixedDelayString = "${bookstore.facets.rebuild-interval:PT1H}",
+            initialDelayString = "${bookstore.facets.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * ساخت bitmapهای تازه بدون قفل و جایگزینی یکجا؛ کتاب‌هایی که در این فاصله تغییر کرده‌اند دوباره خوانده می‌شوند
+     * نکته: برداشتن touched و جایگزینی bitmaps در یک بخش قفل‌شده است تا رویدادی بین این دو گم نشود
+     */
+    public long rebuild() {
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps fresh = new Bitmaps(priceLabels.size());
+        long loaded = 0;
+        boolean complete = false;
+        Reload changed = null;
+        try {
+            long afterId = 0;
+            List<FacetKey> rows;
+            do {
+                rows = bookRepository.findFacetKeys(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (FacetKey row : rows) {
+                    fresh.put(row.getId(), row.getCategory(), row.getStatus(), bucketOf(row.getPrice()));
+                    afterId = row.getId();
+                    loaded++;
+                }
+            } while (rows.size() == LOAD_BATCH_SIZE);
+            complete = true;
+        } finally {
+            // در صورت خطا bitmapهای فعلی می‌مانند
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    bitmaps = fresh;
+                    changed = begin(touched);
+                }
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        apply(changed);
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isDeleted()) {
+                bitmaps.remove(event.getBookId());
+            } else {
+                // حالت قبلی لازم نیست (برای upsert و PATCH نامعلوم است)؛ put بیت id را از همه مقادیر قبلی پاک می‌کند
+                BookDTO book = event.getCurrent();
+                bitmaps.put(book.getId(), book.getCategory(), book.getStatus(), bucketOf(book.getPrice()));
+            }
+            if (touched != null) {
+                touched.add(event.getBookId());
+            }
+            // رویداد بعد از commit است و از هر ردیفی که بارگذاری در جریان پیش‌تر خوانده تازه‌تر است
+            for (Reload reload : reloads) {
+                reload.ids.remove(event.getBookId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // قیمت‌های جدید در رویداد نیستند؛ بازه chunk با کوئری IN روی ستون‌های همین index دوباره خوانده می‌شود
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(BookPricesChangedEvent event) {
+        if (event.getBookIds() == null || event.getBookIds().isEmpty()) {
+            return;
+        }
+        Reload reload;
+        lock.writeLock().lock();
+        try {
+            reload = begin(event.getBookIds());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        apply(reload);
+    }
+
+    // ثبت پیش از خواندن دیتابیس؛ باید زیر write lock صدا زده شود
+    private Reload begin(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        Reload reload = new Reload(++reloadSequence, ids);
+        reloads.add(reload);
+        return reload;
+    }
+
+    /**
+     * خواندن دوباره idها و اعمال فقط آن‌هایی که از شروع این بارگذاری تغییر تازه‌تری (رویداد یا بارگذاری جدیدتر) نگرفته‌اند
+     */
+    private void apply(Reload reload) {
+        if (reload == null) {
+            return;
+        }
+        try {
+            for (List<Long> chunk : BatchSupport.partition(reload.requested, BatchSupport.IN_CLAUSE_SIZE)) {
+                List<FacetKey> rows = bookRepository.findFacetKeysByIdIn(chunk);
+                lock.writeLock().lock();
+                try {
+                    Set<Long> missing = new HashSet<>(chunk);
+                    for (FacetKey row : rows) {
+                        missing.remove(row.getId());
+                        if (reload.ids.contains(row.getId())) {
+                            bitmaps.put(row.getId(), row.getCategory(), row.getStatus(), bucketOf(row.getPrice()));
+                            supersede(reload, row.getId());
+                        }
+                    }
+                    for (Long id : missing) {
+                        if (reload.ids.contains(id)) {
+                            bitmaps.remove(id);
+                            supersede(reload, id);
+                        }
+                    }
+                    if (touched != null) {
+                        touched.addAll(chunk);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                reloads.remove(reload);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // بارگذاری‌هایی که پیش از این یکی شروع شده‌اند ردیف قدیمی‌تری از همین id دارند
+    private void supersede(Reload applied, Long id) {
+        for (Reload other : reloads) {
+            if (other.sequence < applied.sequence) {
+                other.ids.remove(id);
+            }
+        }
+    }
+
+    /**
+     * شمارش دقیق برای اشتراک فیلترها؛ لیست خالی یا null یعنی بدون فیلتر در آن بعد و مقادیر یک بعد با OR ترکیب می‌شوند
+     */
+    public BookFacetsDTO count(Collection<BookCategory> categories, Collection<BookStatus> statuses,
+                               Collection<String> priceRanges) {
+        List<Integer> buckets = bucketsOf(priceRanges);
+
+        lock.readLock().lock();
+        try {
+            BitSet categoryFilter = categories == null || categories.isEmpty() ? null
+                    : union(categories.stream().map(bitmaps.categories::get).toArray(BitSet[]::new));
+            BitSet statusFilter = statuses == null || statuses.isEmpty() ? null
+                    : union(statuses.stream().map(bitmaps.statuses::get).toArray(BitSet[]::new));
+            BitSet priceFilter = buckets.isEmpty() ? null
+                    : union(buckets.stream().map(i -> bitmaps.prices[i]).toArray(BitSet[]::new));
+
+            BookFacetsDTO facets = new BookFacetsDTO();
+            facets.setTotal(cardinality(bitmaps.all, categoryFilter, statusFilter, priceFilter));
+
+            Map<BookCategory, Long> categoryCounts = new EnumMap<>(BookCategory.class);
+            Map<BookCategory, Map<BookStatus, Long>> matrix = new EnumMap<>(BookCategory.class);
+            for (BookCategory category : BookCategory.values()) {
+                BitSet bits = bitmaps.categories.get(category);
+                categoryCounts.put(category, cardinality(bits, statusFilter, priceFilter));
+
+                Map<BookStatus, Long> row = new EnumMap<>(BookStatus.class);
+                for (BookStatus status : BookStatus.values()) {
+                    row.put(status, cardinality(bits, bitmaps.statuses.get(status), priceFilter));
+                }
+                matrix.put(category, row);
+            }
+            facets.setCategories(categoryCounts);
+            facets.setCategoryStatus(matrix);
+
+            Map<BookStatus, Long> statusCounts = new EnumMap<>(BookStatus.class);
+            for (BookStatus status : BookStatus.values()) {
+                statusCounts.put(status, cardinality(bitmaps.statuses.get(status), categoryFilter, priceFilter));
+            }
+            facets.setStatuses(statusCounts);
+
+            Map<String, Long> priceCounts = new LinkedHashMap<>();
+            for (int i = 0; i < priceLabels.size(); i++) {
+                priceCounts.put(priceLabels.get(i), cardinality(bitmaps.prices[i], categoryFilter, statusFilter));
+            }
+            facets.setPriceRanges(priceCounts);
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> bucketsOf(Collection<String> priceRanges) {
+        List<Integer> buckets = new ArrayList<>();
+        if (priceRanges != null) {
+            for (String label : priceRanges) {
+                int index = priceLabels.indexOf(label);
+                if (index < 0) {
+                    throw new IllegalArgumentException("بازه قیمت " + label + " نامعتبر است؛ مقادیر مجاز: " + priceLabels);
+                }
+                buckets.add(index);
+            }
+        }
+        return buckets;
+    }
+
+    // بازه i شامل [boundaries[i-1], boundaries[i]) است؛ بعد از آخرین مرز بازه باز و در انتها «بدون قیمت»
+    private int bucketOf(BigDecimal price) {
+        if (price == null) {
+            return priceBoundaries.length + 1;
+        }
+        for (int i = 0; i < priceBoundaries.length; i++) {
+            if (price.compareTo(priceBoundaries[i]) < 0) {
+                return i;
+            }
+        }
+        return priceBoundaries.length;
+    }
+
+    private static List<String> labelsOf(BigDecimal[] boundaries) {
+        List<String> labels = new ArrayList<>();
+        String lower = "0";
+        for (BigDecimal boundary : boundaries) {
+            String upper = boundary.stripTrailingZeros().toPlainString();
+            labels.add(lower + "-" + upper);
+            lower = upper;
+        }
+        labels.add(lower + "+");
+        labels.add(NO_PRICE);
+        return List.copyOf(labels);
+    }
+
+    private static BitSet union(BitSet[] sets) {
+        BitSet result = new BitSet();
+        for (BitSet set : sets) {
+            result.or(set);
+        }
+        return result;
+    }
+
+    // فیلتر null یعنی بدون محدودیت
+    private static long cardinality(BitSet base, BitSet... filters) {
+        BitSet result = null;
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                if (result == null) {
+                    result = (BitSet) base.clone();
+                }
+                result.and(filter);
+            }
+        }
+        return (result != null ? result : base).cardinality();
+    }
+
+    // idهای یک بارگذاری دوباره؛ ids با رویدادها و بارگذاری‌های جدیدتر کوچک می‌شود
+    private static class Reload {
+
+        private final long sequence;
+        private final List<Long> requested;
+        private final Set<Long> ids;
+
+        Reload(long sequence, Collection<Long> ids) {
+            this.sequence = sequence;
+            this.requested = new ArrayList<>(ids);
+            this.ids = new HashSet<>(ids);
+        }
+    }
+
+    // bitmapهای هر مقدار؛ بیرون از lock فقط هنگام ساخت دوباره و پیش از انتشار استفاده می‌شود
+    private static class Bitmaps {
+
+        private final BitSet all = new BitSet();
+        private final Map<BookCategory, BitSet> categories = new EnumMap<>(BookCategory.class);
+        private final Map<BookStatus, BitSet> statuses = new EnumMap<>(BookStatus.class);
+        private final BitSet[] prices;
+
+        Bitmaps(int priceBuckets) {
+            for (BookCategory category : BookCategory.values()) {
+                categories.put(category, new BitSet());
+            }
+            for (BookStatus status : BookStatus.values()) {
+                statuses.put(status, new BitSet());
+            }
+            prices = new BitSet[priceBuckets];
+            for (int i = 0; i < priceBuckets; i++) {
+                prices[i] = new BitSet();
+            }
+        }
+
+        void put(long id, BookCategory category, BookStatus status, int priceBucket) {
+            int bit = bitOf(id);
+            clear(bit);
+            all.set(bit);
+            categories.get(category).set(bit);
+            statuses.get(status).set(bit);
+            prices[priceBucket].set(bit);
+        }
+
+        void remove(long id) {
+            clear(bitOf(id));
+        }
+
+        private void clear(int bit) {
+            all.clear(bit);
+            categories.values().forEach(bits -> bits.clear(bit));
+            statuses.values().forEach(bits -> bits.clear(bit));
+            for (BitSet bits : prices) {
+                bits.clear(bit);
+            }
+        }
+
+        private static int bitOf(long id) {
+            if (id < 0 || id > Integer.MAX_VALUE) {
+                throw new IllegalStateException("شناسه کتاب " + id + " در bitmap جا نمی‌شود");
+            }
+            return (int) id;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.BookRow;
+import com.example.bookstore.service.BatchSupport;
+import com.example.bookstore.service.PageCursor;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * index معکوس درون‌برنامه‌ای (Lucene روی دیسک محلی) برای جستجوی کتاب‌ها
+ * نکته: عنوان، نام نویسنده و شابک index می‌شوند؛ نتایج بر اساس امتیاز BM25 مرتب و کلمه آخر به صورت پیشوندی جستجو می‌شود
+ * تغییرات کتاب و نویسنده بعد از commit تراکنش به صورت افزایشی اعمال می‌شوند
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_AUTHOR = "author";
+    private static final String FIELD_ISBN = "isbn";
+    // شناسه کتاب به صورت doc values برای مرتب‌سازی پایدار؛ شماره سند Lucene با هر به‌روزرسانی و merge عوض می‌شود
+    private static final String FIELD_SORT_ID = "sort_id";
+
+    // امتیاز نزولی و برای امتیاز برابر شناسه کتاب؛ cursor همین دو مقدار است
+    private static final Sort RANKING = new Sort(SortField.FIELD_SCORE,
+            new SortField(FIELD_SORT_ID, SortField.Type.LONG));
+
+    private static final float TITLE_BOOST = 2.0f;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final String indexDir;
+    private final Analyzer analyzer = new PersianTextAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    // تغییرات اعمال‌شده ولی هنوز دیده‌نشده؛ reopen تا اولین جستجو عقب می‌افتد
+    // تا یک درج دسته‌ای هزارتایی به جای هزار reopen فقط یک reopen هزینه داشته باشد
+    private volatile boolean stale;
+
+    // کتاب‌هایی که حین rebuild با رویداد تغییر کرده‌اند؛ در پایان rebuild از دیتابیس دوباره خوانده می‌شوند
+    // applyLock نوشتن رویدادها را با همان مرحله پایانی ترتیب می‌دهد تا نسخه قدیمی روی نسخه جدید ننشیند
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private Set<Long> touched;
+
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${bookstore.search.index-dir:data/search-index}") String indexDir) {
+        this.bookRepository = bookRepository;
+        this.indexDir = indexDir;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(Paths.get(indexDir));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    // اولین اجرا روی دیسک خالی (یا index قدیمی بدون شناسه مرتب‌سازی): index از روی دیتابیس ساخته می‌شود
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() throws IOException {
+        boolean missingSortId;
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            missingSortId = reader.numDocs() > 0
+                    && FieldInfos.getMergedFieldInfos(reader).fieldInfo(FIELD_SORT_ID) == null;
+        }
+        if (writer.getDocStats().numDocs == 0 || missingSortId) {
+            long indexed = rebuild();
+            log.info("Search index built with {} books", indexed);
+        }
+    }
+
+    /**
+     * ساخت دوباره کل index از دیتابیس با پیمایش keyset، بدون خالی کردن index و همزمان با رویدادها
+     * نکته: هر کتاب با updateDocument جایگزین می‌شود پس تکراری نمی‌شود؛ سندهای کتاب‌هایی که در پیمایش دیده نشده‌اند
+     * در پایان حذف می‌شوند و کتاب‌هایی که حین پیمایش تغییر کرده‌اند از دیتابیس دوباره خوانده می‌شوند
+     */
+    public synchronized long rebuild() {
+        try {
+            applyLock.lock();
+            try {
+                touched = ConcurrentHashMap.newKeySet();
+            } finally {
+                applyLock.unlock();
+            }
+
+            // شناسه‌ها صعودی می‌آیند؛ آرایه مرتب برای جستجوی دودویی در مرحله حذف
+            long[] seen = new long[REBUILD_BATCH_SIZE];
+            int indexed = 0;
+            long afterId = 0;
+            List<BookRow> rows;
+            do {
+                rows = bookRepository.findBookRows(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (BookRow row : rows) {
+                    writer.updateDocument(idTerm(row.getId()), toDocument(row.getId(), row.getTitle(),
+                            row.getAuthorFirstName() + " " + row.getAuthorLastName(), row.getIsbn()));
+                    if (indexed == seen.length) {
+                        seen = Arrays.copyOf(seen, seen.length * 2);
+                    }
+                    seen[indexed++] = row.getId();
+                    afterId = row.getId();
+                }
+            } while (rows.size() == REBUILD_BATCH_SIZE);
+
+            deleteUnseen(Arrays.copyOf(seen, indexed));
+            reapplyTouched();
+            writer.commit();
+            searcherManager.maybeRefresh();
+            return indexed;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            applyLock.lock();
+            touched = null;
+            applyLock.unlock();
+        }
+    }
+
+    // سند کتابی که در پیمایش نبود و حین آن هم تغییری نداشت، مال کتاب حذف‌شده است
+    private void deleteUnseen(long[] seen) throws IOException {
+        List<Long> unseen = new ArrayList<>();
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                StoredFields storedFields = leaf.reader().storedFields();
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    long id = storedFields.document(doc).getField(FIELD_ID).numericValue().longValue();
+                    if (Arrays.binarySearch(seen, id) < 0) {
+                        unseen.add(id);
+                    }
+                }
+            }
+        }
+        applyLock.lock();
+        try {
+            for (Long id : unseen) {
+                if (!touched.contains(id)) {
+                    writer.deleteDocuments(idTerm(id));
+                }
+            }
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    // ردیفی که پیمایش خوانده ممکن است از رویداد همزمان قدیمی‌تر باشد؛ حالت فعلی دیتابیس زیر قفل دوباره اعمال می‌شود
+    private void reapplyTouched() throws IOException {
+        applyLock.lock();
+        try {
+            List<Long> ids = new ArrayList<>(touched);
+            touched = null;
+            for (List<Long> chunk : BatchSupport.partition(ids, BatchSupport.IN_CLAUSE_SIZE)) {
+                Set<Long> missing = new HashSet<>(chunk);
+                for (BookRow row : bookRepository.findBookRowsByIdIn(chunk)) {
+                    writer.updateDocument(idTerm(row.getId()), toDocument(row.getId(), row.getTitle(),
+                            row.getAuthorFirstName() + " " + row.getAuthorLastName(), row.getIsbn()));
+                    missing.remove(row.getId());
+                }
+                for (Long id : missing) {
+                    writer.deleteDocuments(idTerm(id));
+                }
+            }
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * جستجوی رتبه‌بندی‌شده؛ after موقعیت آخرین نتیجه صفحه قبل (امتیاز و شناسه کتاب) است
+     */
+    public List<Hit> search(String text, PageCursor after, int limit) {
+        Query query = buildQuery(text);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+
+        try {
+            refreshIfStale();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // شناسه یکتاست پس شماره سند فقط برای خود کتاب صفحه قبل مقایسه می‌شود؛ آخرین سند یعنی تکرار نشود
+                int lastDoc = Math.max(0, searcher.getIndexReader().maxDoc() - 1);
+                ScoreDoc[] scoreDocs = after == null
+                        ? searcher.search(query, limit, RANKING, true).scoreDocs
+                        : searcher.searchAfter(new FieldDoc(lastDoc, Float.NaN, new Object[]{
+                                Float.intBitsToFloat((int) after.getLong(0)), after.getLong(1)}),
+                                query, limit, RANKING, true).scoreDocs;
+
+                List<Hit> hits = new ArrayList<>(scoreDocs.length);
+                for (ScoreDoc scoreDoc : scoreDocs) {
+                    Object[] fields = ((FieldDoc) scoreDoc).fields;
+                    hits.add(new Hit((Long) fields[1], (Float) fields[0]));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        applyLock.lock();
+        try {
+            if (touched != null) {
+                touched.add(event.getBookId());
+            }
+            if (event.isDeleted()) {
+                writer.deleteDocuments(idTerm(event.getBookId()));
+            } else {
+                BookDTO book = event.getCurrent();
+                writer.updateDocument(idTerm(book.getId()),
+                        toDocument(book.getId(), book.getTitle(), book.getAuthorName(), book.getIsbn()));
+            }
+            stale = true;
+        } catch (IOException ex) {
+            log.error("Failed to update search index for book {}", event.getBookId(), ex);
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    // تغییر نام نویسنده: کتاب‌های او با نام جدید دوباره index می‌شوند
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.isCreated() || event.isDeleted() || !event.isNameChanged()) {
+            return;
+        }
+        try {
+            long afterId = 0;
+            List<BookRow> rows;
+            do {
+                rows = bookRepository.findBookRowsByAuthor(event.getAuthorId(), afterId,
+                        PageRequest.of(0, REBUILD_BATCH_SIZE));
+                applyLock.lock();
+                try {
+                    for (BookRow row : rows) {
+                        if (touched != null) {
+                            touched.add(row.getId());
+                        }
+                        writer.updateDocument(idTerm(row.getId()), toDocument(row.getId(), row.getTitle(),
+                                row.getAuthorFirstName() + " " + row.getAuthorLastName(), row.getIsbn()));
+                        afterId = row.getId();
+                    }
+                } finally {
+                    applyLock.unlock();
+                }
+            } while (rows.size() == REBUILD_BATCH_SIZE);
+            stale = true;
+        } catch (IOException ex) {
+            log.error("Failed to reindex books of author {}", event.getAuthorId(), ex);
+        }
+    }
+
+    // هر جستجو تغییرات قبلی را می‌بیند (near real-time)؛ commit فقط برای ماندگاری روی دیسک است
+    private void refreshIfStale() throws IOException {
+        if (stale) {
+            stale = false;
+            searcherManager.maybeRefreshBlocking();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.search.commit-interval:PT30S}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Document toDocument(Long id, String title, String authorName, String isbn) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(id), Field.Store.NO));
+        document.add(new StoredField(FIELD_ID, id));
+        document.add(new NumericDocValuesField(FIELD_SORT_ID, id));
+        document.add(new TextField(FIELD_TITLE, title, Field.Store.NO));
+        if (authorName != null) {
+            document.add(new TextField(FIELD_AUTHOR, authorName, Field.Store.NO));
+        }
+        document.add(new StringField(FIELD_ISBN, isbn, Field.Store.NO));
+        return document;
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(FIELD_ID, String.valueOf(id));
+    }
+
+    /**
+     * هر کلمه باید در عنوان یا نام نویسنده باشد؛ کلمه آخر (در حال تایپ) پیشوندی جستجو می‌شود
+     * اگر متن فقط رقم باشد، پیشوند شابک هم جستجو می‌شود
+     */
+    private Query buildQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        List<String> tokens = analyze(text);
+        String isbnDigits = toAsciiDigits(text.trim());
+
+        BooleanQuery.Builder root = new BooleanQuery.Builder();
+        boolean hasClause = false;
+
+        if (!tokens.isEmpty()) {
+            BooleanQuery.Builder words = new BooleanQuery.Builder();
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1;
+                BooleanQuery.Builder fields = new BooleanQuery.Builder();
+                fields.add(new BoostQuery(termOrPrefix(FIELD_TITLE, tokens.get(i), prefix), TITLE_BOOST),
+                        BooleanClause.Occur.SHOULD);
+                fields.add(termOrPrefix(FIELD_AUTHOR, tokens.get(i), prefix), BooleanClause.Occur.SHOULD);
+                words.add(fields.build(), BooleanClause.Occur.MUST);
+            }
+            root.add(words.build(), BooleanClause.Occur.SHOULD);
+            hasClause = true;
+        }
+        if (!isbnDigits.isEmpty() && isbnDigits.chars().allMatch(Character::isDigit)) {
+            root.add(new PrefixQuery(new Term(FIELD_ISBN, isbnDigits)), BooleanClause.Occur.SHOULD);
+            hasClause = true;
+        }
+        return hasClause ? root.build() : null;
+    }
+
+    private static Query termOrPrefix(String field, String token, boolean prefix) {
+        Term term = new Term(field, token);
+        return prefix ? new PrefixQuery(term) : new TermQuery(term);
+    }
+
+    private List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_TITLE, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return tokens;
+    }
+
+    // ارقام فارسی/عربی شابک به ارقام لاتین تبدیل و خط تیره‌ها حذف می‌شوند
+    private static String toAsciiDigits(String text) {
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '-') {
+                continue;
+            }
+            int digit = Character.digit(ch, 10);
+            digits.append(digit >= 0 ? (char) ('0' + digit) : ch);
+        }
+        return digits.toString();
+    }
+
+    /**
+     * یک نتیجه جستجو: شناسه کتاب به همراه موقعیت آن برای cursor صفحه بعد
+     */
+    public static class Hit {
+
+        private final long bookId;
+        private final float score;
+
+        public Hit(long bookId, float score) {
+            this.bookId = bookId;
+            this.score = score;
+        }
+
+        public long getBookId() {
+            return bookId;
+        }
+
+        public PageCursor toCursor() {
+            return PageCursor.of(Float.floatToIntBits(score), bookId);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.KeyFilterStatsDTO;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorName;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.IsbnKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * فیلترهای وجود شابک و ایمیل برای حذف SELECTهای بررسی تکراری هنگام ایجاد
+ * نکته: شابک ۱۳ رقمی مستقیماً به long تبدیل می‌شود؛ ایمیل با حروف کوچک hash می‌شود
+ * فیلترها بعد از بالا آمدن برنامه از دیتابیس پر و با رویدادهای تغییر به‌روز می‌شوند؛
+ * حذف کتاب یا تغییر کلید فقط خطای مثبت را کمی بالا می‌برد و با ساخت دوباره دوره‌ای جبران می‌شود
+ */
+@Component
+public class KeyExistenceFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyExistenceFilter.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final KeyFilter isbns = new KeyFilter("isbn", KeyExistenceFilter::isbnHash);
+    private final KeyFilter emails = new KeyFilter("email", KeyExistenceFilter::emailHash);
+
+    @Autowired
+    public KeyExistenceFilter(BookRepository bookRepository, AuthorRepository authorRepository,
+                              @Value("${bookstore.key-filter.expected-insertions:1000000}") long expectedInsertions,
+                              @Value("${bookstore.key-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public KeyFilter isbns() {
+        return isbns;
+    }
+
+    public KeyFilter emails() {
+        return emails;
+    }
+
+    public List<KeyFilterStatsDTO> stats() {
+        return Arrays.asList(isbns.stats(), emails.stats());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuildIsbns();
+        rebuildEmails();
+        log.info("Key filters loaded with {} ISBNs and {} emails", isbns.getEntries(), emails.getEntries());
+    }
+
+    // فیلتری که از ظرفیتش پر شده با اندازه دو برابر دوباره ساخته می‌شود
+    @Scheduled(fixedDelayString = "${bookstore.key-filter.check-interval:PT10M}")
+    public void rebuildIfFull() {
+        if (isbns.isOverCapacity()) {
+            rebuildIsbns();
+        }
+        if (emails.isOverCapacity()) {
+            rebuildEmails();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO book = event.getCurrent();
+        if (book != null) {
+            isbns.add(book.getIsbn());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        AuthorDTO author = event.getCurrent();
+        if (author != null) {
+            emails.add(author.getEmail());
+        }
+    }
+
+    private void rebuildIsbns() {
+        isbns.beginRebuild(capacityFor(bookRepository.count()), falsePositiveRate);
+        long afterId = 0;
+        List<IsbnKey> rows;
+        do {
+            rows = bookRepository.findIsbnKeys(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (IsbnKey row : rows) {
+                isbns.seed(row.getIsbn());
+                afterId = row.getId();
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+        isbns.completeRebuild();
+    }
+
+    private void rebuildEmails() {
+        emails.beginRebuild(capacityFor(authorRepository.count()), falsePositiveRate);
+        long afterId = 0;
+        List<AuthorName> rows;
+        do {
+            rows = authorRepository.findAuthorNames(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (AuthorName row : rows) {
+                emails.seed(row.getEmail());
+                afterId = row.getId();
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+        emails.completeRebuild();
+    }
+
+    // جا برای رشد: حداقل expectedInsertions یا دو برابر تعداد فعلی
+    private long capacityFor(long currentCount) {
+        return Math.max(expectedInsertions, currentCount * 2);
+    }
+
+    // شابک معتبر ۱۳ رقم است و در long جا می‌شود؛ مقدار نامعتبر hash رشته‌ای می‌گیرد
+    static long isbnHash(String isbn) {
+        if (isbn.length() == 13 && isbn.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+            return Long.parseLong(isbn);
+        }
+        return stringHash(isbn);
+    }
+
+    static long emailHash(String email) {
+        return stringHash(email.toLowerCase(Locale.ROOT));
+    }
+
+    private static long stringHash(String value) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return hash;
+    }
+}
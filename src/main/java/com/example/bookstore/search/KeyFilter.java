@@ -0,0 +1,144 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.KeyFilterStatsDTO;
+import com.example.bookstore.service.BatchSupport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * فیلتر وجود یک نوع کلید یکتا (مثل شابک) جلوی SELECT بررسی تکراری
+ * نکته: فقط کلیدی که فیلتر «شاید هست» بگوید به دیتابیس می‌رود؛ پاسخ «نیست» قطعی است
+ * و در بدترین حالت (رقابت دو تراکنش) unique constraint دیتابیس تکراری را رد می‌کند
+ */
+public class KeyFilter {
+
+    private final String name;
+    private final ToLongFunction<String> hasher;
+
+    // تا پیش از اولین بارگذاری null است و همه کلیدها «شاید هست» حساب می‌شوند
+    private volatile BloomFilter current;
+    private volatile BloomFilter rebuilding;
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong rebuildingEntries = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder selectsSaved = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public KeyFilter(String name, ToLongFunction<String> hasher) {
+        this.name = name;
+        this.hasher = hasher;
+    }
+
+    /**
+     * وجود کلید؛ database فقط وقتی صدا زده می‌شود که فیلتر نتواند «نیست» را تضمین کند
+     */
+    public boolean exists(String key, Predicate<String> database) {
+        lookups.increment();
+        if (!mightContain(key)) {
+            selectsSaved.increment();
+            return false;
+        }
+        boolean exists = database.test(key);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * کلیدهای موجود از بین keys؛ فقط کاندیداهای فیلتر با IN چندتکه از دیتابیس پرسیده می‌شوند
+     */
+    public List<String> findExisting(Collection<String> keys, Function<List<String>, List<String>> database) {
+        List<String> candidates = new ArrayList<>();
+        for (String key : keys) {
+            lookups.increment();
+            if (mightContain(key)) {
+                candidates.add(key);
+            } else {
+                selectsSaved.increment();
+            }
+        }
+
+        List<String> existing = new ArrayList<>();
+        for (List<String> chunk : BatchSupport.partition(candidates, BatchSupport.IN_CLAUSE_SIZE)) {
+            existing.addAll(database.apply(chunk));
+        }
+        falsePositives.add(candidates.size() - existing.size());
+        return existing;
+    }
+
+    public void add(String key) {
+        if (key == null) {
+            return;
+        }
+        long hash = hasher.applyAsLong(key);
+        // اول فیلتر در حال ساخت خوانده می‌شود: اگر null باشد جابه‌جایی تمام شده و current همان فیلتر تازه است
+        BloomFilter next = rebuilding;
+        if (next != null && next.put(hash)) {
+            rebuildingEntries.incrementAndGet();
+        }
+        BloomFilter filter = current;
+        if (filter != null && filter != next && filter.put(hash)) {
+            entries.incrementAndGet();
+        }
+    }
+
+    /**
+     * شروع ساخت فیلتر تازه؛ تغییرات همزمان به هر دو فیلتر نوشته می‌شوند تا هیچ کلیدی جا نماند
+     */
+    public synchronized void beginRebuild(long capacity, double falsePositiveRate) {
+        rebuildingEntries.set(0);
+        rebuilding = new BloomFilter(capacity, falsePositiveRate);
+    }
+
+    public void seed(String key) {
+        if (key != null && rebuilding.put(hasher.applyAsLong(key))) {
+            rebuildingEntries.incrementAndGet();
+        }
+    }
+
+    public synchronized void completeRebuild() {
+        current = rebuilding;
+        entries.set(rebuildingEntries.get());
+        rebuilding = null;
+    }
+
+    public boolean isOverCapacity() {
+        BloomFilter filter = current;
+        return filter != null && entries.get() > filter.getCapacity();
+    }
+
+    public long getEntries() {
+        return entries.get();
+    }
+
+    public KeyFilterStatsDTO stats() {
+        KeyFilterStatsDTO dto = new KeyFilterStatsDTO(name);
+        BloomFilter filter = current;
+        dto.setReady(filter != null);
+        dto.setEntries(entries.get());
+        if (filter != null) {
+            dto.setCapacity(filter.getCapacity());
+            dto.setBitSize(filter.getBitSize());
+            dto.setHashFunctions(filter.getHashFunctions());
+            dto.setExpectedFalsePositiveRate(filter.expectedFalsePositiveRate());
+        }
+        dto.setLookups(lookups.sum());
+        dto.setSelectsSaved(selectsSaved.sum());
+        dto.setFalsePositives(falsePositives.sum());
+        return dto;
+    }
+
+    private boolean mightContain(String key) {
+        BloomFilter filter = current;
+        return key == null || filter == null || filter.mightContain(hasher.applyAsLong(key));
+    }
+}
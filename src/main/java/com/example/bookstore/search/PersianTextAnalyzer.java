@@ -0,0 +1,41 @@
+package com.example.bookstore.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ar.ArabicNormalizationFilter;
+import org.apache.lucene.analysis.core.DecimalDigitFilter;
+import org.apache.lucene.analysis.fa.PersianCharFilter;
+import org.apache.lucene.analysis.fa.PersianNormalizationFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+import java.io.Reader;
+
+/**
+ * analyzer متن فارسی/عربی برای index جستجو
+ * نکته: ي/ی و ك/ک به یک شکل نرمال می‌شوند، نیم‌فاصله (ZWNJ) مرز کلمه است و ارقام فارسی به لاتین تبدیل می‌شوند
+ * برخلاف PersianAnalyzer استاندارد، stop word حذف نمی‌شود تا جستجوی پیشوندی روی کلمات کوتاه هم کار کند
+ */
+public class PersianTextAnalyzer extends Analyzer {
+
+    @Override
+    protected Reader initReader(String fieldName, Reader reader) {
+        // ZWNJ به فاصله تبدیل می‌شود
+        return new PersianCharFilter(reader);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new StandardTokenizer();
+        return new TokenStreamComponents(source, normalize(fieldName, source));
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        TokenStream result = new LowerCaseFilter(in);
+        result = new DecimalDigitFilter(result);
+        result = new ArabicNormalizationFilter(result);
+        return new PersianNormalizationFilter(result);
+    }
+}
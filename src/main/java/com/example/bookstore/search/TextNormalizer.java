@@ -0,0 +1,46 @@
+package com.example.bookstore.search;
+
+import org.apache.lucene.analysis.ar.ArabicNormalizer;
+import org.apache.lucene.analysis.fa.PersianNormalizer;
+
+import java.util.Locale;
+
+/**
+ * نرمال‌سازی متن فارسی/عربی با همان قواعد PersianTextAnalyzer، برای ساختارهای درون‌حافظه‌ای
+ * نکته: ي/ی و ك/ک یکسان می‌شوند، اعراب حذف می‌شود و نیم‌فاصله و فاصله‌های پشت‌سرهم به یک فاصله تبدیل می‌شوند
+ */
+public final class TextNormalizer {
+
+    private static final char ZWNJ = '\u200C';
+
+    private static final ArabicNormalizer ARABIC = new ArabicNormalizer();
+    private static final PersianNormalizer PERSIAN = new PersianNormalizer();
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        char[] chars = text.toLowerCase(Locale.ROOT).toCharArray();
+        int length = ARABIC.normalize(chars, chars.length);
+        length = PERSIAN.normalize(chars, length);
+
+        StringBuilder result = new StringBuilder(length);
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char ch = chars[i];
+            if (ch == ZWNJ || Character.isWhitespace(ch)) {
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result.append(' ');
+                pendingSpace = false;
+            }
+            result.append(ch);
+        }
+        return result.toString();
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.AuthorRankDTO;
+import com.example.bookstore.dto.AuthorSuggestionDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
 import com.example.bookstore.entity.Author;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * service interface: قرارداد برای business logic
@@ -12,16 +17,30 @@ import java.util.List;
 public interface AuthorService {
 
     // CRUD operations
-    List<AuthorDTO> getAllAuthors();
+    CursorPage<AuthorDTO> getAllAuthors(String cursor, Integer size);
     AuthorDTO getAuthorById(Long id);
+    LookupResult<AuthorDTO> getAuthorsByIds(List<Long> ids);
     AuthorDTO createAuthor(AuthorDTO authorDTO);
+    List<AuthorDTO> createAuthors(List<AuthorDTO> authorDTOs);
     AuthorDTO updateAuthor(Long id, AuthorDTO authorDTO);
+    AuthorDTO patchAuthor(Long id, Map<String, Object> patch);
     void deleteAuthor(Long id);
 
     // Business operations
-    List<AuthorDTO> searchAuthorsByName(String name);
-    List<AuthorDTO> getAuthorsWithMinimumBooks(int minBooks);
+    CursorPage<AuthorDTO> searchAuthorsByName(String name, String cursor, Integer size);
+    CursorPage<AuthorDTO> getAuthorsWithMinimumBooks(int minBooks, String cursor, Integer size);
     AuthorDTO getAuthorByEmail(String email);
+    List<AuthorSuggestionDTO> suggestAuthors(String prefix, int limit);
+
+    List<AuthorRankDTO> getTopAuthors(String by, int limit);
+
+    // Sparse fieldsets: فقط فیلدهای fields= در SELECT و پاسخ
+    CursorPage<Map<String, Object>> getAuthorFields(String fields, String cursor, Integer size);
+    Map<String, Object> getAuthorFieldsById(Long id, String fields);
+
+    // Conditional GET: نسخه منبع بدون بارگذاری و تبدیل آن
+    ResourceVersion getAuthorVersion(Long id);
+    ResourceVersion getAuthorListVersion();
 
     // Utility method برای تبدیل entity به DTO
     AuthorDTO convertToDTO(Author author);
@@ -1,16 +1,48 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.AuthorRankDTO;
+import com.example.bookstore.dto.AuthorSuggestionDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
 import com.example.bookstore.entity.Author;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.readmodel.CatalogReadModel;
+import com.example.bookstore.readmodel.CatalogSnapshot;
+import com.example.bookstore.exception.DuplicateResourceException;
 import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.AuthorFieldsRepository;
 import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorRow;
+import com.example.bookstore.repository.AuthorRepository.AuthorVersion;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.FieldSelection;
+import com.example.bookstore.search.AuthorNameSuggester;
+import com.example.bookstore.search.KeyExistenceFilter;
+import com.example.bookstore.stats.AuthorLeaderboard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * service implementation: پیاده‌سازی business logic
@@ -20,49 +52,168 @@ import java.util.stream.Collectors;
 @Transactional
 public class AuthorServiceImpl implements AuthorService {
 
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+
+    // فیلدهای قابل ویرایش با PATCH؛ نام‌ها همان propertyهای AuthorDTO هستند
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("firstName", "lastName", "email", "age");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // dependency injection - Spring به صورت خودکار وابستگی را تزریق می‌کند
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
+    private final AuthorNameSuggester authorNameSuggester;
+    private final CatalogReadModel catalogReadModel;
+    private final AuthorLeaderboard authorLeaderboard;
+    private final KeyExistenceFilter keyExistenceFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int jdbcBatchSize;
 
     // constructor injection - recommended approach
     @Autowired
-    public AuthorServiceImpl(AuthorRepository authorRepository, BookRepository bookRepository) {
+    public AuthorServiceImpl(AuthorRepository authorRepository, BookRepository bookRepository,
+                             AuthorNameSuggester authorNameSuggester, CatalogReadModel catalogReadModel,
+                             AuthorLeaderboard authorLeaderboard, KeyExistenceFilter keyExistenceFilter, ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper, Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
+        this.authorNameSuggester = authorNameSuggester;
+        this.catalogReadModel = catalogReadModel;
+        this.authorLeaderboard = authorLeaderboard;
+        this.keyExistenceFilter = keyExistenceFilter;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jdbcBatchSize = jdbcBatchSize;
     }
 
+    // بدون تراکنش وقتی مدل خواندنی فعال است؛ در غیر این صورت تراکنش فقط‌خواندنی مثل قبل
     @Override
-    @Transactional(readOnly = true)
-    public List<AuthorDTO> getAllAuthors() {
-        // stream API - برای پردازش مجموعه‌ها
-        return authorRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<AuthorDTO> getAllAuthors(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            List<AuthorDTO> authors = catalog.findAuthors(PageCursor.afterId(cursor), pageSize + 1);
+            return CursorPage.slice(authors, pageSize, author -> PageCursor.of(author.getId()));
+        }
+        return readOnlyTransaction.execute(status -> toPage(authorRepository.findAuthorRows(
+                PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthorDTO getAuthorById(Long id) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            int index = catalog.indexOfAuthor(id);
+            if (index < 0) {
+                throw new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد");
+            }
+            return catalog.authorView(index);
+        }
         // optional: برای مدیریت مقادیر null به صورت ایمن
-        Author author = authorRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد"));
-        return convertToDTO(author);
+        // نویسنده از cache سطح دوم و تعداد کتاب‌ها از query cache خوانده می‌شود
+        return readOnlyTransaction.execute(status -> convertToDTO(authorRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد"))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LookupResult<AuthorDTO> getAuthorsByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        BatchSupport.checkBatchSize(distinctIds);
+
+        // ستون‌ها و تعداد کتاب‌های هر تکه با یک IN و GROUP BY
+        Map<Long, AuthorDTO> found = new HashMap<>();
+        for (List<Long> chunk : BatchSupport.partition(distinctIds, BatchSupport.IN_CLAUSE_SIZE)) {
+            for (AuthorRow row : authorRepository.findAuthorRowsByIdIn(chunk)) {
+                found.put(row.getId(), convertToDTO(row));
+            }
+        }
+        return LookupResult.inRequestOrder(distinctIds, found);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getAuthorFields(String fields, String cursor, Integer size) {
+        FieldSelection selection = FieldSelection.parse(fields, AuthorFieldsRepository.FIELDS);
+        int pageSize = PageCursor.pageSize(size);
+        List<Map<String, Object>> rows = authorRepository.findAuthorFields(selection, null,
+                PageCursor.afterId(cursor), pageSize + 1);
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.get(FieldSelection.ID)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAuthorFieldsById(Long id, String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, AuthorFieldsRepository.FIELDS);
+        List<Map<String, Object>> rows = authorRepository.findAuthorFields(selection, id, 0, 1);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد");
+        }
+        return rows.get(0);
     }
 
     @Override
     public AuthorDTO createAuthor(AuthorDTO authorDTO) {
         // validation logic
-        if (authorDTO.getEmail() != null) {
-            authorRepository.findByEmail(authorDTO.getEmail())
-                    .ifPresent(author -> {
-                        throw new IllegalArgumentException("نویسنده با ایمیل " + authorDTO.getEmail() + " از قبل وجود دارد");
-                    });
+        // ایمیلی که فیلتر قطعاً جدید بداند بدون SELECT پذیرفته می‌شود؛ unique constraint پشتیبان است
+        if (authorDTO.getEmail() != null
+                && keyExistenceFilter.emails().exists(authorDTO.getEmail(), authorRepository::existsByEmail)) {
+            throw new DuplicateResourceException("نویسنده با ایمیل " + authorDTO.getEmail() + " از قبل وجود دارد");
         }
 
         Author author = convertToEntity(authorDTO);
-        Author savedAuthor = authorRepository.save(author);
-        return convertToDTO(savedAuthor);
+        Author savedAuthor = authorRepository.saveAndFlush(author);
+        AuthorDTO created = convertToDTO(savedAuthor);
+        eventPublisher.publishEvent(AuthorChangedEvent.created(created));
+        return created;
+    }
+
+    @Override
+    public List<AuthorDTO> createAuthors(List<AuthorDTO> authorDTOs) {
+        BatchSupport.checkBatchSize(authorDTOs);
+
+        // ایمیل تکراری داخل درخواست و در دیتابیس با چند IN
+        Set<String> emails = new HashSet<>();
+        for (AuthorDTO authorDTO : authorDTOs) {
+            if (authorDTO.getEmail() != null && !emails.add(authorDTO.getEmail())) {
+                throw new IllegalArgumentException("ایمیل " + authorDTO.getEmail() + " در درخواست تکراری است");
+            }
+        }
+        List<String> existing = keyExistenceFilter.emails().findExisting(emails, authorRepository::findExistingEmails);
+        if (!existing.isEmpty()) {
+            throw new DuplicateResourceException("نویسنده با ایمیل " + existing.get(0) + " از قبل وجود دارد");
+        }
+
+        // INSERT دسته‌ای هر jdbcBatchSize نویسنده؛ نویسنده جدید هنوز کتابی ندارد
+        List<AuthorDTO> created = new ArrayList<>(authorDTOs.size());
+        for (AuthorDTO authorDTO : authorDTOs) {
+            Author author = convertToEntity(authorDTO);
+            author.setId(null);
+            AuthorDTO dto = snapshotOf(authorRepository.save(author));
+            dto.setBookCount(0);
+            created.add(dto);
+            if (created.size() % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        for (AuthorDTO author : created) {
+            eventPublisher.publishEvent(AuthorChangedEvent.created(author));
+        }
+        return created;
     }
 
     @Override
@@ -70,6 +221,7 @@ public class AuthorServiceImpl implements AuthorService {
         // پیدا کردن author موجود
         Author existingAuthor = authorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد"));
+        AuthorDTO previous = snapshotOf(existingAuthor);
 
         // به روزرسانی فیلدها
         existingAuthor.setFirstName(authorDTO.getFirstName());
@@ -77,8 +229,50 @@ public class AuthorServiceImpl implements AuthorService {
         existingAuthor.setEmail(authorDTO.getEmail());
         existingAuthor.setAge(authorDTO.getAge());
 
-        Author updatedAuthor = authorRepository.save(existingAuthor);
-        return convertToDTO(updatedAuthor);
+        Author updatedAuthor = authorRepository.saveAndFlush(existingAuthor);
+        AuthorDTO updated = convertToDTO(updatedAuthor);
+        eventPublisher.publishEvent(new AuthorChangedEvent(previous, updated));
+        return updated;
+    }
+
+    @Override
+    public AuthorDTO patchAuthor(Long id, Map<String, Object> body) {
+        MergePatch patch = MergePatch.of(body, AuthorDTO.class, Author.class, PATCHABLE_FIELDS, objectMapper, validator);
+
+        // با نسخه: یک UPDATE شرطی فقط روی ستون‌های patch، بدون خواندن نویسنده
+        if (patch.hasExpectedVersion()) {
+            if (patch.executeUpdate(entityManager, Author.class, id, patch.getValues()) == 0) {
+                if (!authorRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد");
+                }
+                throw new ObjectOptimisticLockingFailureException(Author.class, id);
+            }
+            AuthorDTO updated = convertToDTO(authorRepository.findAuthorRowById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد")));
+            eventPublisher.publishEvent(AuthorChangedEvent.updatedInPlace(updated));
+            return updated;
+        }
+
+        // بدون نسخه: نویسنده از cache سطح دوم و با @DynamicUpdate فقط ستون‌های تغییرکرده نوشته می‌شوند
+        Author author = authorRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد"));
+        AuthorDTO previous = snapshotOf(author);
+        if (patch.contains("firstName")) {
+            author.setFirstName(patch.get("firstName"));
+        }
+        if (patch.contains("lastName")) {
+            author.setLastName(patch.get("lastName"));
+        }
+        if (patch.contains("email")) {
+            author.setEmail(patch.get("email"));
+        }
+        if (patch.contains("age")) {
+            author.setAge(patch.get("age"));
+        }
+
+        AuthorDTO updated = convertToDTO(authorRepository.saveAndFlush(author));
+        eventPublisher.publishEvent(new AuthorChangedEvent(previous, updated));
+        return updated;
     }
 
     @Override
@@ -93,33 +287,125 @@ public class AuthorServiceImpl implements AuthorService {
             throw new IllegalStateException("نمی‌توان نویسنده‌ای که کتاب دارد را حذف کرد. تعداد کتاب‌ها: " + bookCount);
         }
 
+        AuthorDTO previous = snapshotOf(author);
         authorRepository.delete(author);
+        eventPublisher.publishEvent(AuthorChangedEvent.deleted(previous));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<AuthorDTO> searchAuthorsByName(String name) {
-        return authorRepository.findByNameContaining(name)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<AuthorDTO> searchAuthorsByName(String name, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        List<AuthorRow> rows = authorRepository.findByNameContaining(name, PageCursor.afterId(cursor), pageSize + 1);
+        return toPage(rows, pageSize);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<AuthorDTO> getAuthorsWithMinimumBooks(int minBooks) {
-        return authorRepository.findAuthorsWithMinimumBooks(minBooks)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<AuthorDTO> getAuthorsWithMinimumBooks(int minBooks, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        // cursor این endpoint دو کلید دارد: (bookCount, id) آخرین نویسنده صفحه
+        PageCursor after = PageCursor.decode(cursor, 2);
+        long afterCount = after == null ? Long.MAX_VALUE : after.getLong(0);
+        long afterId = after == null ? 0L : after.getLong(1);
+
+        List<AuthorRow> rows = authorRepository.findAuthorsWithMinimumBooks(
+                minBooks, afterCount, afterId, PageRequest.of(0, pageSize + 1));
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.getBookCount(), row.getId()))
+                .map(this::convertToDTO);
     }
 
     @Override
     @Transactional(readOnly = true)
     public AuthorDTO getAuthorByEmail(String email) {
-        Author author = authorRepository.findByEmail(email)
+        AuthorRow row = authorRepository.findAuthorRowByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ایمیل " + email + " یافت نشد"));
-        return convertToDTO(author);
+        return convertToDTO(row);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getAuthorVersion(Long id) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            int index = catalog.indexOfAuthor(id);
+            if (index < 0) {
+                throw new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد");
+            }
+            AuthorDTO author = catalog.authorView(index);
+            return ResourceVersion.of(id, author.getVersion(), author.getBookCount());
+        }
+        AuthorVersion version = readOnlyTransaction.execute(status -> authorRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + id + " یافت نشد")));
+        return ResourceVersion.of(id, version.getUpdatedAt(), version.getBookCount());
+    }
+
+    // bookCount هر نویسنده در فهرست است، پس تغییر کتاب‌ها هم نسخه فهرست نویسندگان را عوض می‌کند
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getAuthorListVersion() {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return ResourceVersion.of("authors", catalog.getGeneration(), catalog.getPublishedAt());
+        }
+        return readOnlyTransaction.execute(status -> {
+            AuthorRepository.ListVersion authors = authorRepository.findListVersion();
+            BookRepository.ListVersion books = bookRepository.findListVersion();
+            return ResourceVersion.of(authors.getLastModified(), authors.getCount(),
+                    books.getLastModified(), books.getCount());
+        });
+    }
+
+    // بدون تراکنش: پاسخ فقط از حافظه ساخته می‌شود و اتصالی از pool گرفته نمی‌شود
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AuthorSuggestionDTO> suggestAuthors(String prefix, int limit) {
+        return authorNameSuggester.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    // بدون تراکنش: k نفر اول مستقیم از skip list جدول رتبه‌بندی
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AuthorRankDTO> getTopAuthors(String by, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE));
+        switch (by) {
+            case "books":
+                return authorLeaderboard.topByBooks(size);
+            case "borrows":
+                return authorLeaderboard.topByBorrows(size);
+            default:
+                throw new IllegalArgumentException("معیار رتبه‌بندی نامعتبر است: " + by + " (books یا borrows)");
+        }
+    }
+
+    // cursor صفحه بعد همان id آخرین نویسنده صفحه است
+    private CursorPage<AuthorDTO> toPage(List<AuthorRow> rows, int pageSize) {
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.getId()))
+                .map(this::convertToDTO);
+    }
+
+    private AuthorDTO convertToDTO(AuthorRow row) {
+        AuthorDTO dto = new AuthorDTO();
+        dto.setId(row.getId());
+        dto.setFirstName(row.getFirstName());
+        dto.setLastName(row.getLastName());
+        dto.setEmail(row.getEmail());
+        dto.setAge(row.getAge());
+        dto.setBookCount(row.getBookCount().intValue());
+        dto.setVersion(row.getVersion());
+        return dto;
+    }
+
+    // وضعیت نویسنده پیش از تغییر برای رویداد؛ بدون شمارش کتاب‌ها
+    private AuthorDTO snapshotOf(Author author) {
+        AuthorDTO dto = new AuthorDTO();
+        dto.setId(author.getId());
+        dto.setFirstName(author.getFirstName());
+        dto.setLastName(author.getLastName());
+        dto.setEmail(author.getEmail());
+        dto.setAge(author.getAge());
+        dto.setVersion(author.getVersion());
+        return dto;
     }
 
     @Override
@@ -130,10 +416,13 @@ public class AuthorServiceImpl implements AuthorService {
         dto.setLastName(author.getLastName());
         dto.setEmail(author.getEmail());
         dto.setAge(author.getAge());
+        dto.setVersion(author.getVersion());
 
-        // محاسبه تعداد کتاب‌ها
-        if (author.getBooks() != null) {
+        // محاسبه تعداد کتاب‌ها: اگر مجموعه books بارگذاری نشده، با COUNT شمرده می‌شود نه با initialize کردن آن
+        if (author.getBooks() != null && Hibernate.isInitialized(author.getBooks())) {
             dto.setBookCount(author.getBooks().size());
+        } else if (author.getId() != null) {
+            dto.setBookCount(bookRepository.countBooksByAuthor(author.getId()).intValue());
         } else {
             dto.setBookCount(0);
         }
@@ -0,0 +1,46 @@
+package com.example.bookstore.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ابزار مشترک عملیات دسته‌ای
+ * نکته: لیست‌های بزرگ برای IN به تکه‌های محدود شکسته می‌شوند تا کوئری و plan cache بیش از حد بزرگ نشوند
+ */
+public final class BatchSupport {
+
+    // حداکثر تعداد ردیف در یک درخواست دسته‌ای (یک تراکنش)
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    // حداکثر تعداد پارامتر در یک IN
+    public static final int IN_CLAUSE_SIZE = 1000;
+
+    private BatchSupport() {
+    }
+
+    public static void checkBatchSize(Collection<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("لیست درخواست نمی‌تواند خالی باشد");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("حداکثر " + MAX_BATCH_SIZE + " ردیف در هر درخواست مجاز است");
+        }
+    }
+
+    public static <T> List<List<T>> partition(Collection<T> values, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(size, values.size()));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * service interface: خروجی گرفتن از کل کاتالوگ به صورت stream
+ */
+public interface BookExportService {
+
+    // کتاب‌ها یکی‌یکی از cursor دیتابیس خوانده و مستقیم در out نوشته می‌شوند
+    void exportBooks(ExportFormat format, OutputStream out) throws IOException;
+}
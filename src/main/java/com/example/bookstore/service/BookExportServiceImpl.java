@@ -0,0 +1,113 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.enums.ExportFormat;
+import com.example.bookstore.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * service implementation: خروجی NDJSON/CSV با مصرف heap ثابت
+ * نکته: persistence context هر EXPORT_FETCH_SIZE ردیف پاک می‌شود تا entityها در حافظه جمع نشوند
+ */
+@Service
+public class BookExportServiceImpl implements BookExportService {
+
+    private static final String CSV_HEADER =
+            "id,title,isbn,category,status,price,pageCount,publicationDate,authorId,authorName";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final ObjectWriter jsonWriter;
+
+    @Autowired
+    public BookExportServiceImpl(BookRepository bookRepository, BookService bookService, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.jsonWriter = objectMapper.writerFor(BookDTO.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<Book> books = bookRepository.streamAllForExport()) {
+            Iterator<Book> iterator = books.iterator();
+            int rowsSinceClear = 0;
+            while (iterator.hasNext()) {
+                BookDTO dto = bookService.convertToDTO(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, dto);
+                } else {
+                    writer.write(jsonWriter.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+
+                // جدا کردن entityهای خوانده‌شده از persistence context
+                if (++rowsSinceClear == BookRepository.EXPORT_FETCH_SIZE) {
+                    entityManager.clear();
+                    rowsSinceClear = 0;
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, BookDTO dto) throws IOException {
+        writer.write(String.valueOf(dto.getId()));
+        writer.write(',');
+        writer.write(csv(dto.getTitle()));
+        writer.write(',');
+        writer.write(csv(dto.getIsbn()));
+        writer.write(',');
+        writer.write(csv(dto.getCategory()));
+        writer.write(',');
+        writer.write(csv(dto.getStatus()));
+        writer.write(',');
+        writer.write(csv(dto.getPrice()));
+        writer.write(',');
+        writer.write(csv(dto.getPageCount()));
+        writer.write(',');
+        writer.write(csv(dto.getPublicationDate()));
+        writer.write(',');
+        writer.write(csv(dto.getAuthorId()));
+        writer.write(',');
+        writer.write(csv(dto.getAuthorName()));
+        writer.write('\n');
+    }
+
+    // escape طبق RFC 4180: مقدارهای شامل ویرگول، کوتیشن یا خط جدید داخل کوتیشن قرار می‌گیرند
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
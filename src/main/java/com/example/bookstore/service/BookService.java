@@ -1,27 +1,59 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BookFacetsDTO;
+import com.example.bookstore.dto.BookLoanDTO;
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.dto.BookUpsertResultDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
+import com.example.bookstore.dto.TrendingBooksDTO;
 import com.example.bookstore.enums.BookCategory;
 import com.example.bookstore.enums.BookStatus;
 
 import java.util.List;
+import java.util.Map;
 
 public interface BookService {
 
     // CRUD operations
-    List<BookDTO> getAllBooks();
+    CursorPage<BookDTO> getAllBooks(String cursor, Integer size);
     BookDTO getBookById(Long id);
+    LookupResult<BookDTO> getBooksByIds(List<Long> ids);
     BookDTO createBook(BookDTO bookDTO);
+    List<BookDTO> createBooks(List<BookDTO> bookDTOs);
     BookDTO updateBook(Long id, BookDTO bookDTO);
+    BookDTO patchBook(Long id, Map<String, Object> patch);
+    BookUpsertResultDTO upsertBook(String isbn, BookDTO bookDTO);
+    List<BookUpsertResultDTO> upsertBooks(List<BookDTO> bookDTOs);
     void deleteBook(Long id);
 
     // Business operations
-    List<BookDTO> getBooksByCategory(BookCategory category);
-    List<BookDTO> getBooksByStatus(BookStatus status);
-    List<BookDTO> searchBooksByTitle(String title);
-    List<BookDTO> getBooksByAuthor(Long authorId);
+    CursorPage<BookDTO> getBooksByCategory(BookCategory category, String cursor, Integer size);
+    CursorPage<BookDTO> getBooksByStatus(BookStatus status, String cursor, Integer size);
+    CursorPage<BookDTO> searchBooksByTitle(String title, String cursor, Integer size);
+    CursorPage<BookDTO> getBooksByAuthor(Long authorId, String cursor, Integer size);
+    CursorPage<BookDTO> queryBooks(BookQueryDTO query, String cursor, Integer size);
     BookDTO borrowBook(Long id);
     BookDTO returnBook(Long id);
+    CursorPage<BookLoanDTO> getBookLoans(Long id, String cursor, Integer size);
+    long rebuildSearchIndex();
+
+    // Facet counts: شمارش دقیق دسته‌بندی/وضعیت/بازه قیمت از index بیتی درون حافظه
+    BookFacetsDTO getBookFacets(List<BookCategory> categories, List<BookStatus> statuses, List<String> priceRanges);
+    TrendingBooksDTO getTrendingBooks(String window, int limit);
+
+    // Sparse fieldsets: فقط فیلدهای fields= در SELECT و پاسخ؛ حداکثر یکی از فیلترها
+    CursorPage<Map<String, Object>> getBookFields(String fields, BookCategory category, BookStatus status,
+                                                  Long authorId, String cursor, Integer size);
+    Map<String, Object> getBookFieldsById(Long id, String fields);
+
+    // Conditional GET: نسخه منبع بدون بارگذاری و تبدیل آن
+    ResourceVersion getBookVersion(Long id);
+    ResourceVersion getBookListVersion();
+    ResourceVersion getBooksByCategoryVersion(BookCategory category);
+    ResourceVersion getBooksByStatusVersion(BookStatus status);
+    ResourceVersion getBooksByAuthorVersion(Long authorId);
 
     // Utility methods
     BookDTO convertToDTO(com.example.bookstore.entity.Book book);
@@ -1,57 +1,196 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BookFacetsDTO;
+import com.example.bookstore.dto.BookLoanDTO;
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.dto.BookUpsertResultDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.LookupResult;
+import com.example.bookstore.dto.TrendingBookDTO;
+import com.example.bookstore.dto.TrendingBooksDTO;
 import com.example.bookstore.entity.Author;
 import com.example.bookstore.entity.Book;
+import com.example.bookstore.entity.BookLoan;
 import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookSortField;
 import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.enums.TrendingWindow;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.readmodel.CatalogReadModel;
+import com.example.bookstore.readmodel.CatalogSnapshot;
+import com.example.bookstore.exception.DuplicateResourceException;
 import com.example.bookstore.exception.ResourceNotFoundException;
 import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.FieldSelection;
+import com.example.bookstore.repository.BookFieldsRepository;
+import com.example.bookstore.repository.BookLoanRepository;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.BookRow;
+import com.example.bookstore.repository.BookRepository.BookVersion;
+import com.example.bookstore.repository.BookRepository.ListVersion;
+import com.example.bookstore.repository.BookUpsertRepository;
+import com.example.bookstore.search.BookFacetIndex;
+import com.example.bookstore.search.BookSearchIndex;
+import com.example.bookstore.search.KeyExistenceFilter;
+import com.example.bookstore.stats.TrendingBooks;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
 public class BookServiceImpl implements BookService {
 
+    // فیلدهای قابل ویرایش با PATCH؛ نام‌ها همان propertyهای BookDTO هستند
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("title", "isbn", "category", "status", "price",
+            "pageCount", "publicationDate", "authorId");
+
+    private static final int MAX_TRENDING_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
+    private final BookUpsertRepository bookUpsertRepository;
+    private final BookLoanRepository bookLoanRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacetIndex bookFacetIndex;
+    private final CatalogReadModel catalogReadModel;
+    private final TrendingBooks trendingBooks;
+    private final KeyExistenceFilter keyExistenceFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int jdbcBatchSize;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository) {
+    public BookServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository,
+                           BookUpsertRepository bookUpsertRepository, BookLoanRepository bookLoanRepository,
+                           BookSearchIndex bookSearchIndex, BookFacetIndex bookFacetIndex, CatalogReadModel catalogReadModel,
+                           TrendingBooks trendingBooks, KeyExistenceFilter keyExistenceFilter, ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper, Validator validator, PlatformTransactionManager transactionManager,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
+        this.bookUpsertRepository = bookUpsertRepository;
+        this.bookLoanRepository = bookLoanRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookFacetIndex = bookFacetIndex;
+        this.catalogReadModel = catalogReadModel;
+        this.trendingBooks = trendingBooks;
+        this.keyExistenceFilter = keyExistenceFilter;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    // بدون تراکنش وقتی مدل خواندنی فعال است؛ در غیر این صورت تراکنش فقط‌خواندنی مثل قبل
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<BookDTO> getAllBooks(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotPage(catalog, null, null, null, cursor, pageSize);
+        }
+        return readOnlyTransaction.execute(status -> toPage(bookRepository.findBookRows(
+                PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BookDTO getBookById(Long id) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            int index = catalog.indexOfBook(id);
+            if (index < 0) {
+                throw new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد");
+            }
+            return catalog.bookView(index);
+        }
+        // کتاب و نویسنده هر دو از cache سطح دوم خوانده می‌شوند
+        return readOnlyTransaction.execute(status -> convertToDTO(bookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"))));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookDTO> getAllBooks() {
-        return bookRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public LookupResult<BookDTO> getBooksByIds(List<Long> ids) {
+        // شناسه‌های تکراری یک بار خوانده و یک بار برگردانده می‌شوند
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        BatchSupport.checkBatchSize(distinctIds);
+
+        // یک IN با JOIN نویسنده برای هر IN_CLAUSE_SIZE شناسه؛ بدون findById و lazy load برای هر کتاب
+        Map<Long, BookDTO> found = new HashMap<>();
+        for (List<Long> chunk : BatchSupport.partition(distinctIds, BatchSupport.IN_CLAUSE_SIZE)) {
+            for (BookRow row : bookRepository.findBookRowsByIdIn(chunk)) {
+                found.put(row.getId(), convertToDTO(row));
+            }
+        }
+        return LookupResult.inRequestOrder(distinctIds, found);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public BookDTO getBookById(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
-        return convertToDTO(book);
+    public CursorPage<Map<String, Object>> getBookFields(String fields, BookCategory category, BookStatus status,
+                                                         Long authorId, String cursor, Integer size) {
+        if (authorId != null && !authorRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد");
+        }
+
+        FieldSelection selection = FieldSelection.parse(fields, BookFieldsRepository.FIELDS);
+        String filterAttribute = category != null ? "category" : status != null ? "status" :
+                authorId != null ? "authorId" : null;
+        Object filterValue = category != null ? category : status != null ? status : authorId;
+
+        int pageSize = PageCursor.pageSize(size);
+        List<Map<String, Object>> rows = bookRepository.findBookFields(selection, filterAttribute, filterValue,
+                PageCursor.afterId(cursor), pageSize + 1);
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.get(FieldSelection.ID)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBookFieldsById(Long id, String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, BookFieldsRepository.FIELDS);
+        List<Map<String, Object>> rows = bookRepository.findBookFields(selection, FieldSelection.ID, id, 0, 1);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد");
+        }
+        return rows.get(0);
     }
 
     @Override
     public BookDTO createBook(BookDTO bookDTO) {
-        // بررسی وجود ISBN تکراری
-        bookRepository.findByIsbn(bookDTO.getIsbn())
-                .ifPresent(book -> {
-                    throw new IllegalArgumentException("کتاب با شابک " + bookDTO.getIsbn() + " از قبل وجود دارد");
-                });
+        // بررسی وجود ISBN تکراری؛ شابکی که فیلتر قطعاً جدید بداند به دیتابیس نمی‌رود
+        checkIsbnIsNew(bookDTO.getIsbn());
 
         // بررسی وجود author
         Author author = authorRepository.findById(bookDTO.getAuthorId())
@@ -61,21 +200,62 @@ public class BookServiceImpl implements BookService {
         Book book = convertToEntity(bookDTO);
         book.setAuthor(author);
 
-        Book savedBook = bookRepository.save(book);
-        return convertToDTO(savedBook);
+        // flush همین‌جا تا نقض unique constraint (پشتیبان فیلتر) به صورت 409 برگردد
+        Book savedBook = bookRepository.saveAndFlush(book);
+        BookDTO created = convertToDTO(savedBook);
+        eventPublisher.publishEvent(BookChangedEvent.created(created));
+        return created;
+    }
+
+    @Override
+    public List<BookDTO> createBooks(List<BookDTO> bookDTOs) {
+        BatchSupport.checkBatchSize(bookDTOs);
+
+        // شابک تکراری داخل خود درخواست و سپس در دیتابیس با چند IN به جای یک کوئری برای هر کتاب
+        Set<String> isbns = new LinkedHashSet<>();
+        Set<Long> authorIds = new LinkedHashSet<>();
+        for (BookDTO bookDTO : bookDTOs) {
+            if (!isbns.add(bookDTO.getIsbn())) {
+                throw new IllegalArgumentException("شابک " + bookDTO.getIsbn() + " در درخواست تکراری است");
+            }
+            authorIds.add(bookDTO.getAuthorId());
+        }
+        List<String> existing = keyExistenceFilter.isbns().findExisting(isbns, bookRepository::findExistingIsbns);
+        if (!existing.isEmpty()) {
+            throw new DuplicateResourceException("کتاب با شابک " + existing.get(0) + " از قبل وجود دارد");
+        }
+
+        Map<Long, Author> authors = findAuthors(authorIds);
+
+        // شناسه‌ها از بلوک sequence در حافظه می‌آیند؛ هر jdbcBatchSize کتاب یک INSERT دسته‌ای
+        // و پاک کردن persistence context تا حافظه تراکنش با اندازه درخواست رشد نکند
+        List<BookDTO> created = new ArrayList<>(bookDTOs.size());
+        for (BookDTO bookDTO : bookDTOs) {
+            Book book = convertToEntity(bookDTO);
+            book.setId(null);
+            book.setAuthor(authors.get(bookDTO.getAuthorId()));
+            created.add(convertToDTO(bookRepository.save(book)));
+            if (created.size() % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        for (BookDTO book : created) {
+            eventPublisher.publishEvent(BookChangedEvent.created(book));
+        }
+        return created;
     }
 
     @Override
     public BookDTO updateBook(Long id, BookDTO bookDTO) {
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
+        BookDTO previous = snapshotOf(existingBook);
 
         // بررسی تغییر ISBN (اگر تغییر کرده و تکراری است)
         if (!existingBook.getIsbn().equals(bookDTO.getIsbn())) {
-            bookRepository.findByIsbn(bookDTO.getIsbn())
-                    .ifPresent(book -> {
-                        throw new IllegalArgumentException("کتاب با شابک " + bookDTO.getIsbn() + " از قبل وجود دارد");
-                    });
+            checkIsbnIsNew(bookDTO.getIsbn());
         }
 
         // به روزرسانی فیلدها
@@ -94,80 +274,519 @@ public class BookServiceImpl implements BookService {
             existingBook.setAuthor(newAuthor);
         }
 
-        Book updatedBook = bookRepository.save(existingBook);
-        return convertToDTO(updatedBook);
+        Book updatedBook = bookRepository.saveAndFlush(existingBook);
+        BookDTO updated = convertToDTO(updatedBook);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, updated));
+        return updated;
+    }
+
+    @Override
+    public BookDTO patchBook(Long id, Map<String, Object> body) {
+        MergePatch patch = MergePatch.of(body, BookDTO.class, Book.class, PATCHABLE_FIELDS, objectMapper, validator);
+
+        // نویسنده فقط وقتی خوانده می‌شود که در patch آمده باشد
+        Author author = null;
+        if (patch.contains("authorId")) {
+            Long authorId = patch.get("authorId");
+            author = authorRepository.findById(authorId)
+                    .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد"));
+        }
+        if (patch.hasExpectedVersion()) {
+            return patchInPlace(id, patch, author);
+        }
+
+        // بدون نسخه: کتاب از cache سطح دوم و با @DynamicUpdate فقط ستون‌های تغییرکرده در UPDATE می‌آیند
+        Book book = bookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
+        BookDTO previous = snapshotOf(book);
+        if (patch.contains("title")) {
+            book.setTitle(patch.get("title"));
+        }
+        if (patch.contains("isbn")) {
+            book.setIsbn(patch.get("isbn"));
+        }
+        if (patch.contains("category")) {
+            book.setCategory(patch.get("category"));
+        }
+        if (patch.contains("status")) {
+            book.setStatus(patch.get("status"));
+        }
+        if (patch.contains("price")) {
+            book.setPrice(patch.get("price"));
+        }
+        if (patch.contains("pageCount")) {
+            book.setPageCount(patch.get("pageCount"));
+        }
+        if (patch.contains("publicationDate")) {
+            book.setPublicationDate(patch.get("publicationDate"));
+        }
+        if (author != null) {
+            book.setAuthor(author);
+        }
+
+        BookDTO updated = convertToDTO(bookRepository.saveAndFlush(book));
+        eventPublisher.publishEvent(new BookChangedEvent(previous, updated));
+        return updated;
+    }
+
+    // با نسخه: یک UPDATE شرطی روی همان ستون‌ها و سپس خواندن ردیف برای پاسخ و رویداد
+    private BookDTO patchInPlace(Long id, MergePatch patch, Author author) {
+        Map<String, Object> assignments = new LinkedHashMap<>(patch.getValues());
+        if (assignments.remove("authorId") != null) {
+            assignments.put("author", author);
+        }
+        if (patch.executeUpdate(entityManager, Book.class, id, assignments) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد");
+            }
+            throw new ObjectOptimisticLockingFailureException(Book.class, id);
+        }
+
+        BookDTO updated = convertToDTO(bookRepository.findBookRowsByIdIn(List.of(id)).get(0));
+        eventPublisher.publishEvent(BookChangedEvent.updatedInPlace(updated));
+        return updated;
+    }
+
+    @Override
+    public BookUpsertResultDTO upsertBook(String isbn, BookDTO bookDTO) {
+        if (!isbn.equals(bookDTO.getIsbn())) {
+            throw new IllegalArgumentException("شابک مسیر با شابک بدنه درخواست یکسان نیست");
+        }
+
+        // نویسنده از cache سطح دوم؛ خود کتاب بدون خواندن قبلی با یک دستور درج یا به‌روزرسانی می‌شود
+        Author author = authorRepository.findById(bookDTO.getAuthorId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "نویسنده با ID " + bookDTO.getAuthorId() + " یافت نشد"));
+        Book book = convertToEntity(bookDTO);
+        book.setAuthor(author);
+        return afterUpsert(book, bookUpsertRepository.upsert(book));
+    }
+
+    @Override
+    public List<BookUpsertResultDTO> upsertBooks(List<BookDTO> bookDTOs) {
+        BatchSupport.checkBatchSize(bookDTOs);
+
+        // شابک تکراری در یک دسته معنای مشخصی ندارد (کدام نسخه برنده است؟) پس رد می‌شود
+        Set<String> isbns = new LinkedHashSet<>();
+        Set<Long> authorIds = new LinkedHashSet<>();
+        for (BookDTO bookDTO : bookDTOs) {
+            if (!isbns.add(bookDTO.getIsbn())) {
+                throw new IllegalArgumentException("شابک " + bookDTO.getIsbn() + " در درخواست تکراری است");
+            }
+            authorIds.add(bookDTO.getAuthorId());
+        }
+        Map<Long, Author> authors = findAuthors(authorIds);
+
+        List<Book> books = new ArrayList<>(bookDTOs.size());
+        for (BookDTO bookDTO : bookDTOs) {
+            Book book = convertToEntity(bookDTO);
+            book.setAuthor(authors.get(bookDTO.getAuthorId()));
+            books.add(book);
+        }
+        List<BookUpsertRepository.Result> results = bookUpsertRepository.upsertAll(books, jdbcBatchSize);
+
+        List<BookUpsertResultDTO> upserted = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            upserted.add(afterUpsert(books.get(i), results.get(i)));
+        }
+        return upserted;
+    }
+
+    // حالت قبلی ردیف به‌روزرسانی‌شده خوانده نشده است؛ رویداد آن previous ندارد و status در پاسخ خالی می‌ماند
+    private BookUpsertResultDTO afterUpsert(Book book, BookUpsertRepository.Result result) {
+        book.setId(result.getId());
+        BookDTO dto = convertToDTO(book);
+        if (result.isCreated()) {
+            eventPublisher.publishEvent(BookChangedEvent.created(dto));
+        } else {
+            dto.setStatus(null);
+            eventPublisher.publishEvent(BookChangedEvent.updatedInPlace(dto));
+        }
+        return new BookUpsertResultDTO(result.isCreated(), dto);
     }
 
     @Override
     public void deleteBook(Long id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
+        BookDTO previous = snapshotOf(book);
         bookRepository.delete(book);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(previous));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<BookDTO> getBooksByCategory(BookCategory category) {
-        return bookRepository.findByCategory(category)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<BookDTO> getBooksByCategory(BookCategory category, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotPage(catalog, category, null, null, cursor, pageSize);
+        }
+        return readOnlyTransaction.execute(tx -> toPage(bookRepository.findBookRowsByCategory(category,
+                PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<BookDTO> getBooksByStatus(BookStatus status) {
-        return bookRepository.findByStatus(status)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<BookDTO> getBooksByStatus(BookStatus status, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotPage(catalog, null, status, null, cursor, pageSize);
+        }
+        return readOnlyTransaction.execute(tx -> toPage(bookRepository.findBookRowsByStatus(status,
+                PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookDTO> searchBooksByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<BookDTO> searchBooksByTitle(String title, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        // جستجو در index درون‌برنامه‌ای؛ دیتابیس فقط برای خواندن ردیف‌های همین صفحه با IN روی کلید اصلی
+        List<BookSearchIndex.Hit> hits = bookSearchIndex.search(title, PageCursor.decode(cursor, 2), pageSize + 1);
+        CursorPage<BookSearchIndex.Hit> page = CursorPage.slice(hits, pageSize, BookSearchIndex.Hit::toCursor);
+        if (page.getItems().isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null, pageSize);
+        }
+
+        List<Long> ids = new ArrayList<>(page.getItems().size());
+        for (BookSearchIndex.Hit hit : page.getItems()) {
+            ids.add(hit.getBookId());
+        }
+        Map<Long, BookDTO> booksById = new HashMap<>();
+        for (BookRow row : bookRepository.findBookRowsByIdIn(ids)) {
+            booksById.put(row.getId(), convertToDTO(row));
+        }
+
+        // حفظ ترتیب رتبه‌بندی index؛ کتابی که بین index و دیتابیس حذف شده نادیده گرفته می‌شود
+        List<BookDTO> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookDTO dto = booksById.get(id);
+            if (dto != null) {
+                ranked.add(dto);
+            }
+        }
+        return new CursorPage<>(ranked, page.getNextCursor(), pageSize);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<BookDTO> getBooksByAuthor(Long authorId, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            if (catalog.indexOfAuthor(authorId) < 0) {
+                throw new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد");
+            }
+            return snapshotPage(catalog, null, null, authorId, cursor, pageSize);
+        }
+
+        return readOnlyTransaction.execute(status -> {
+            // بررسی وجود author
+            if (!authorRepository.existsById(authorId)) {
+                throw new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد");
+            }
+            return toPage(bookRepository.findBookRowsByAuthor(
+                    authorId, PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookDTO> getBooksByAuthor(Long authorId) {
-        // بررسی وجود author
-        authorRepository.findById(authorId)
-                .orElseThrow(() -> new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد"));
+    public CursorPage<BookDTO> queryBooks(BookQueryDTO query, String cursor, Integer size) {
+        if (query.getSort() == null) {
+            query.setSort(BookSortField.ID);
+        }
+        if (query.getDirection() == null) {
+            query.setDirection(Sort.Direction.ASC);
+        }
+        if (query.getMinPrice() != null && query.getMaxPrice() != null
+                && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new IllegalArgumentException("حداقل قیمت نمی‌تواند بیشتر از حداکثر قیمت باشد");
+        }
+        if (query.getPublishedFrom() != null && query.getPublishedTo() != null
+                && query.getPublishedFrom().isAfter(query.getPublishedTo())) {
+            throw new IllegalArgumentException("بازه تاریخ انتشار نامعتبر است");
+        }
+        if (query.getAuthorId() != null && !authorRepository.existsById(query.getAuthorId())) {
+            throw new ResourceNotFoundException("نویسنده با ID " + query.getAuthorId() + " یافت نشد");
+        }
 
-        return bookRepository.findByAuthorId(authorId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // cursor: (ستون مرتب‌سازی، مقدار آن، id)؛ cursor یک مرتب‌سازی دیگر پذیرفته نمی‌شود
+        BookSortField sort = query.getSort();
+        PageCursor after = PageCursor.decode(cursor, 3);
+        Object afterValue = null;
+        Long afterId = null;
+        if (after != null) {
+            if (!sort.name().equals(after.getString(0))) {
+                throw new IllegalArgumentException("cursor صفحه نامعتبر است");
+            }
+            try {
+                afterValue = sort.parse(after.getString(1));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("cursor صفحه نامعتبر است");
+            }
+            afterId = after.getLong(2);
+        }
+
+        int pageSize = PageCursor.pageSize(size);
+        List<BookRow> rows = bookRepository.queryBookRows(query, afterValue, afterId, pageSize + 1);
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(sort.name(), sortValue(row, sort), row.getId()))
+                .map(this::convertToDTO);
+    }
+
+    private static Object sortValue(BookRow row, BookSortField sort) {
+        switch (sort) {
+            case TITLE:
+                return row.getTitle();
+            case PRICE:
+                return row.getPrice();
+            case PUBLICATION_DATE:
+                return row.getPublicationDate();
+            default:
+                return row.getId();
+        }
     }
 
     @Override
     public BookDTO borrowBook(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
-
-        if (!book.isAvailable()) {
+        if (!transitionStatus(id, BookStatus.AVAILABLE, BookStatus.BORROWED)) {
+            BookStatus current = currentStatus(id);
             throw new IllegalStateException("کتاب برای امانت دادن موجود نیست. وضعیت فعلی: " +
-                    book.getStatus().getStatusDescription());
+                    current.getStatusDescription());
         }
-
-        book.borrowBook();
-        Book updatedBook = bookRepository.save(book);
-        return convertToDTO(updatedBook);
+        return afterTransition(id, BookStatus.AVAILABLE);
     }
 
     @Override
     public BookDTO returnBook(Long id) {
+        if (!transitionStatus(id, BookStatus.BORROWED, BookStatus.AVAILABLE)) {
+            BookStatus current = currentStatus(id);
+            throw new IllegalStateException("کتاب امانت داده نشده است. وضعیت فعلی: " +
+                    current.getStatusDescription());
+        }
+        return afterTransition(id, BookStatus.BORROWED);
+    }
+
+    // نویسنده‌های یک دسته با چند IN؛ نبودن هر کدام یعنی 404 برای کل دسته
+    private Map<Long, Author> findAuthors(Set<Long> authorIds) {
+        Map<Long, Author> authors = new HashMap<>();
+        for (List<Long> chunk : BatchSupport.partition(authorIds, BatchSupport.IN_CLAUSE_SIZE)) {
+            for (Author author : authorRepository.findAllById(chunk)) {
+                authors.put(author.getId(), author);
+            }
+        }
+        for (Long authorId : authorIds) {
+            if (!authors.containsKey(authorId)) {
+                throw new ResourceNotFoundException("نویسنده با ID " + authorId + " یافت نشد");
+            }
+        }
+        return authors;
+    }
+
+    private void checkIsbnIsNew(String isbn) {
+        if (keyExistenceFilter.isbns().exists(isbn, bookRepository::existsByIsbn)) {
+            throw new DuplicateResourceException("کتاب با شابک " + isbn + " از قبل وجود دارد");
+        }
+    }
+
+    // تاریخچه از دفتر امانت؛ کتاب حذف‌شده هم تا وقتی ردیفی در دفتر دارد قابل خواندن است
+    // رویدادهای چند ثانیه اخیر ممکن است هنوز در صف نویسنده پس‌زمینه باشند
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookLoanDTO> getBookLoans(Long id, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        List<BookLoan> loans = bookLoanRepository.findByBook(id, PageCursor.afterId(cursor),
+                PageRequest.of(0, pageSize + 1));
+        if (loans.isEmpty() && cursor == null && !bookRepository.existsById(id)) {
+            throw new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد");
+        }
+        return CursorPage.slice(loans, pageSize, loan -> PageCursor.of(loan.getId()))
+                .map(loan -> new BookLoanDTO(loan.getId(), loan.getBookId(), loan.getAction(), loan.getOccurredAt()));
+    }
+
+    // یک UPDATE شرطی بدون قفل خواندن؛ از بین درخواست‌های همزمان فقط یکی ردیف را تغییر می‌دهد
+    private boolean transitionStatus(Long id, BookStatus from, BookStatus to) {
+        return bookRepository.transitionStatus(id, from, to, LocalDateTime.now()) == 1;
+    }
+
+    private BookStatus currentStatus(Long id) {
+        return bookRepository.findStatusById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
+    }
+
+    private BookDTO afterTransition(Long id, BookStatus previousStatus) {
+        // UPDATE مستقیم از cache سطح دوم عبور نمی‌کند؛ بدون evict ردیف قدیمی (وضعیت قبلی) از cache خوانده می‌شد
+        entityManager.getEntityManagerFactory().getCache().evict(Book.class, id);
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد"));
+        BookDTO current = convertToDTO(book);
+        BookDTO previous = snapshotOf(book);
+        previous.setStatus(previousStatus);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, current));
+        return current;
+    }
 
-        book.returnBook();
-        Book updatedBook = bookRepository.save(book);
-        return convertToDTO(updatedBook);
+    @Override
+    @Transactional(readOnly = true)
+    public long rebuildSearchIndex() {
+        return bookSearchIndex.rebuild();
+    }
+
+    // بدون تراکنش: شمارش‌ها فقط از bitmapهای درون حافظه است و اتصالی از pool گرفته نمی‌شود
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BookFacetsDTO getBookFacets(List<BookCategory> categories, List<BookStatus> statuses,
+                                       List<String> priceRanges) {
+        return bookFacetIndex.count(categories, statuses, priceRanges);
+    }
+
+    // رتبه‌بندی از sketch درون حافظه؛ دیتابیس فقط برای عنوان همان چند کتاب با یک IN
+    @Override
+    @Transactional(readOnly = true)
+    public TrendingBooksDTO getTrendingBooks(String window, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_TRENDING_SIZE));
+        TrendingBooksDTO trending = trendingBooks.top(TrendingWindow.of(window), size, System.currentTimeMillis());
+        if (trending.getBooks().isEmpty()) {
+            return trending;
+        }
+
+        List<Long> ids = new ArrayList<>(trending.getBooks().size());
+        for (TrendingBookDTO book : trending.getBooks()) {
+            ids.add(book.getBookId());
+        }
+        Map<Long, BookRow> rows = new HashMap<>();
+        for (BookRow row : bookRepository.findBookRowsByIdIn(ids)) {
+            rows.put(row.getId(), row);
+        }
+
+        // کتابی که بعد از امانت حذف شده کنار گذاشته می‌شود
+        List<TrendingBookDTO> books = new ArrayList<>(ids.size());
+        for (TrendingBookDTO book : trending.getBooks()) {
+            BookRow row = rows.get(book.getBookId());
+            if (row != null) {
+                book.setRank(books.size() + 1);
+                book.setTitle(row.getTitle());
+                book.setAuthorName(row.getAuthorFirstName() + " " + row.getAuthorLastName());
+                books.add(book);
+            }
+        }
+        trending.setBooks(books);
+        return trending;
+    }
+
+    // با مدل خواندنی نسخه کتاب از ستون version خودش و نویسنده‌اش ساخته می‌شود
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getBookVersion(Long id) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            int index = catalog.indexOfBook(id);
+            if (index < 0) {
+                throw new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد");
+            }
+            return ResourceVersion.of(id, catalog.bookVersion(index), catalog.bookAuthorVersion(index));
+        }
+        BookVersion version = readOnlyTransaction.execute(status -> bookRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("کتاب با ID " + id + " یافت نشد")));
+        return ResourceVersion.timestamped(id, version.getUpdatedAt(), version.getAuthorUpdatedAt());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getBookListVersion() {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotVersion("all", catalog);
+        }
+        return toVersion("all", readOnlyTransaction.execute(status -> bookRepository.findListVersion()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getBooksByCategoryVersion(BookCategory category) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotVersion(category, catalog);
+        }
+        return toVersion(category, readOnlyTransaction.execute(
+                status -> bookRepository.findListVersionByCategory(category)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getBooksByStatusVersion(BookStatus status) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotVersion(status, catalog);
+        }
+        return toVersion(status, readOnlyTransaction.execute(tx -> bookRepository.findListVersionByStatus(status)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResourceVersion getBooksByAuthorVersion(Long authorId) {
+        CatalogSnapshot catalog = catalogReadModel.snapshot();
+        if (catalog != null) {
+            return snapshotVersion("author:" + authorId, catalog);
+        }
+        return toVersion("author:" + authorId, readOnlyTransaction.execute(
+                status -> bookRepository.findListVersionByAuthor(authorId)));
+    }
+
+    // هر تصویر جدید نسل تازه‌ای دارد؛ فهرست‌ها با هر تغییری در کاتالوگ نسخه جدید می‌گیرند
+    private static ResourceVersion snapshotVersion(Object filter, CatalogSnapshot catalog) {
+        return ResourceVersion.of(filter, catalog.getGeneration(), catalog.getPublishedAt());
+    }
+
+    private static CursorPage<BookDTO> snapshotPage(CatalogSnapshot catalog, BookCategory category,
+                                                    BookStatus status, Long authorId, String cursor, int pageSize) {
+        List<BookDTO> books = catalog.findBooks(category, status, authorId, PageCursor.afterId(cursor), pageSize + 1);
+        return CursorPage.slice(books, pageSize, book -> PageCursor.of(book.getId()));
+    }
+
+    private ResourceVersion toVersion(Object filter, ListVersion version) {
+        return ResourceVersion.of(filter, version.getLastModified(), version.getAuthorLastModified(),
+                version.getCount());
+    }
+
+    // cursor صفحه بعد همان id آخرین کتاب صفحه است
+    private CursorPage<BookDTO> toPage(List<BookRow> rows, int pageSize) {
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.getId()))
+                .map(this::convertToDTO);
+    }
+
+    // تبدیل projection به DTO؛ نام نویسنده از همان JOIN می‌آید و کوئری اضافه‌ای اجرا نمی‌شود
+    private BookDTO convertToDTO(BookRow row) {
+        BookDTO dto = new BookDTO();
+        dto.setId(row.getId());
+        dto.setTitle(row.getTitle());
+        dto.setIsbn(row.getIsbn());
+        dto.setCategory(row.getCategory());
+        dto.setStatus(row.getStatus());
+        dto.setPrice(row.getPrice());
+        dto.setPageCount(row.getPageCount());
+        dto.setPublicationDate(row.getPublicationDate());
+        dto.setAuthorId(row.getAuthorId());
+        dto.setAuthorName(row.getAuthorFirstName() + " " + row.getAuthorLastName());
+        dto.setVersion(row.getVersion());
+        return dto;
+    }
+
+    // وضعیت کتاب پیش از تغییر برای رویداد؛ بدون authorName تا proxy نویسنده بارگذاری نشود
+    private BookDTO snapshotOf(Book book) {
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setIsbn(book.getIsbn());
+        dto.setCategory(book.getCategory());
+        dto.setStatus(book.getStatus());
+        dto.setPrice(book.getPrice());
+        dto.setPageCount(book.getPageCount());
+        dto.setPublicationDate(book.getPublicationDate());
+        dto.setAuthorId(book.getAuthor() != null ? book.getAuthor().getId() : null);
+        dto.setVersion(book.getVersion());
+        return dto;
     }
 
     @Override
@@ -181,6 +800,7 @@ public class BookServiceImpl implements BookService {
         dto.setPrice(book.getPrice());
         dto.setPageCount(book.getPageCount());
         dto.setPublicationDate(book.getPublicationDate());
+        dto.setVersion(book.getVersion());
 
         if (book.getAuthor() != null) {
             dto.setAuthorId(book.getAuthor().getId());
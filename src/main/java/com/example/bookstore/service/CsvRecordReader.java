@@ -0,0 +1,101 @@
+package com.example.bookstore.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * خواندن جریانی CSV طبق RFC 4180 (همان قالبی که خروجی CSV می‌نویسد)
+ * نکته: فقط یک رکورد در حافظه است؛ فیلدهای داخل کوتیشن می‌توانند ویرگول و خط جدید داشته باشند
+ */
+public class CsvRecordReader {
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private int pending = -2; // -2 یعنی کاراکتری از قبل خوانده نشده
+    private boolean started;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * رکورد بعدی یا null در انتهای فایل؛ سطرهای کاملاً خالی نادیده گرفته می‌شوند
+     */
+    public List<String> readRecord() throws IOException {
+        while (true) {
+            int ch = read();
+            if (ch == -1) {
+                return null;
+            }
+            if (ch == '\r' || ch == '\n') {
+                continue;
+            }
+            unread(ch);
+            return readFields();
+        }
+    }
+
+    private List<String> readFields() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            int ch = read();
+            if (quoted) {
+                if (ch == -1) {
+                    throw new IOException("کوتیشن بسته نشده در انتهای فایل CSV");
+                }
+                if (ch == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+            } else if (ch == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                if (ch == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) ch);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int ch = pending;
+            pending = -2;
+            return ch;
+        }
+        int ch = reader.read();
+        if (!started) {
+            started = true;
+            if (ch == BOM) {
+                ch = reader.read();
+            }
+        }
+        return ch;
+    }
+
+    private void unread(int ch) {
+        pending = ch;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.ImportJobDTO;
+import com.example.bookstore.dto.ImportRowErrorDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * درون‌ریزی ناهمگام فایل‌های بزرگ کاتالوگ
+ */
+public interface ImportService {
+
+    ImportJobDTO startImport(MultipartFile file);
+    ImportJobDTO getImportJob(Long id);
+    CursorPage<ImportRowErrorDTO> getImportErrors(Long id, String cursor, Integer size);
+    ImportJobDTO resumeImport(Long id);
+}
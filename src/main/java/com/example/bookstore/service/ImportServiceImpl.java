@@ -0,0 +1,525 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.dto.ImportJobDTO;
+import com.example.bookstore.dto.ImportRowErrorDTO;
+import com.example.bookstore.entity.Author;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.entity.ImportJob;
+import com.example.bookstore.entity.ImportRowError;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.enums.ImportJobStatus;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorName;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.ImportJobRepository;
+import com.example.bookstore.repository.ImportRowErrorRepository;
+import com.example.bookstore.search.KeyExistenceFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * درون‌ریزی جریانی فایل CSV کاتالوگ در تکه‌های تراکنشی
+ * نکته: فایل روی دیسک ذخیره و ردیف به ردیف خوانده می‌شود؛ هر chunkSize ردیف در یک تراکنش با INSERT دسته‌ای نوشته می‌شود
+ * نویسندگان از یک map درون‌حافظه‌ای (ایمیل → شناسه) پیدا یا ساخته می‌شوند و ردیف‌های خطادار گزارش و رد می‌شوند
+ */
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportServiceImpl.class);
+
+    private static final List<String> REQUIRED_COLUMNS = Arrays.asList("title", "isbn", "category");
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final int AUTHOR_LOAD_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportRowErrorRepository importRowErrorRepository;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final KeyExistenceFilter keyExistenceFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final Path importDir;
+    private final int chunkSize;
+
+    // کارها یکی‌یکی اجرا می‌شوند تا دو فایل همزمان برای شابک و ایمیل یکسان رقابت نکنند
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "catalog-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ImportServiceImpl(ImportJobRepository importJobRepository, ImportRowErrorRepository importRowErrorRepository,
+                             BookRepository bookRepository, AuthorRepository authorRepository,
+                             KeyExistenceFilter keyExistenceFilter, ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             @Value("${bookstore.import.dir:data/imports}") String importDir,
+                             @Value("${bookstore.import.chunk-size:1000}") int chunkSize) {
+        this.importJobRepository = importJobRepository;
+        this.importRowErrorRepository = importRowErrorRepository;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.keyExistenceFilter = keyExistenceFilter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.importDir = Paths.get(importDir);
+        this.chunkSize = chunkSize;
+    }
+
+    // کارهایی که با خاموش شدن برنامه نیمه‌کاره مانده‌اند متوقف علامت می‌خورند تا قابل ادامه باشند
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedJobs() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ImportJob job : importJobRepository.findByStatusIn(
+                    EnumSet.of(ImportJobStatus.PENDING, ImportJobStatus.RUNNING))) {
+                job.setStatus(ImportJobStatus.FAILED);
+                job.setMessage("کار با راه‌اندازی مجدد برنامه متوقف شد");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ImportJobDTO startImport(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("فایل درون‌ریزی خالی است");
+        }
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "catalog.csv";
+        ImportJob job = transactionTemplate.execute(status -> importJobRepository.save(new ImportJob(fileName)));
+
+        try {
+            Files.createDirectories(importDir);
+            file.transferTo(fileOf(job.getId()));
+        } catch (IOException ex) {
+            finish(job.getId(), ImportJobStatus.FAILED, "ذخیره فایل ناموفق بود: " + ex.getMessage());
+            throw new UncheckedIOException(ex);
+        }
+
+        executor.submit(() -> run(job.getId()));
+        return convertToDTO(job);
+    }
+
+    @Override
+    public ImportJobDTO getImportJob(Long id) {
+        return convertToDTO(findJob(id));
+    }
+
+    @Override
+    public CursorPage<ImportRowErrorDTO> getImportErrors(Long id, String cursor, Integer size) {
+        findJob(id);
+        int pageSize = PageCursor.pageSize(size);
+        List<ImportRowError> rows = importRowErrorRepository.findByJob(
+                id, PageCursor.afterId(cursor), PageRequest.of(0, pageSize + 1));
+        return CursorPage.slice(rows, pageSize, row -> PageCursor.of(row.getId()))
+                .map(row -> new ImportRowErrorDTO(row.getId(), row.getRowNumber(), row.getIsbn(), row.getMessage()));
+    }
+
+    @Override
+    public ImportJobDTO resumeImport(Long id) {
+        ImportJob job = transactionTemplate.execute(status -> {
+            ImportJob existing = findJob(id);
+            if (!existing.getStatus().isResumable()) {
+                throw new IllegalStateException("فقط کار متوقف‌شده قابل ادامه است. وضعیت فعلی: " + existing.getStatus());
+            }
+            existing.setStatus(ImportJobStatus.PENDING);
+            existing.setMessage(null);
+            return existing;
+        });
+
+        executor.submit(() -> run(id));
+        return convertToDTO(job);
+    }
+
+    // اجرای کار روی thread درون‌ریزی؛ ردیف‌های commit‌شده قبلی (committedRows) رد می‌شوند
+    private void run(Long jobId) {
+        ImportJob job = transactionTemplate.execute(status -> {
+            ImportJob existing = findJob(jobId);
+            existing.setStatus(ImportJobStatus.RUNNING);
+            if (existing.getStartedAt() == null) {
+                existing.setStartedAt(LocalDateTime.now());
+            }
+            existing.setFinishedAt(null);
+            return existing;
+        });
+        long skip = job.getCommittedRows();
+
+        try (Reader reader = Files.newBufferedReader(fileOf(jobId), StandardCharsets.UTF_8)) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            Map<String, Integer> columns = readHeader(csv.readRecord());
+            AuthorLookup authors = loadAuthors();
+
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            long rowNumber = 0;
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (++rowNumber <= skip) {
+                    continue;
+                }
+                chunk.add(new ImportRow(rowNumber, record, columns));
+                if (chunk.size() == chunkSize) {
+                    writeChunk(jobId, chunk, authors);
+                    chunk.clear();
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("درون‌ریزی متوقف شد");
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(jobId, chunk, authors);
+            }
+            finish(jobId, ImportJobStatus.COMPLETED, null);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Import job {} failed", jobId, ex);
+            finish(jobId, ImportJobStatus.FAILED, ex.getMessage());
+            return;
+        }
+
+        // فایل فقط برای ادامه کار لازم است
+        try {
+            Files.deleteIfExists(fileOf(jobId));
+        } catch (IOException ex) {
+            log.warn("Could not delete import file of job {}", jobId, ex);
+        }
+    }
+
+    /**
+     * یک تراکنش برای هر تکه: کتاب‌ها، نویسندگان جدید، خطاهای ردیف و پیشرفت کار با هم commit می‌شوند
+     */
+    private void writeChunk(Long jobId, List<ImportRow> rows, AuthorLookup authors) {
+        Map<String, AuthorRef> createdAuthors = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // شابک‌های موجود کل تکه با یک IN، فقط برای کاندیداهای فیلتر وجود کلید
+            Set<String> isbns = new HashSet<>();
+            for (ImportRow row : rows) {
+                if (row.value("isbn") != null) {
+                    isbns.add(row.value("isbn"));
+                }
+            }
+            Set<String> existingIsbns = new HashSet<>(
+                    keyExistenceFilter.isbns().findExisting(isbns, bookRepository::findExistingIsbns));
+
+            int imported = 0;
+            int failed = 0;
+            for (ImportRow row : rows) {
+                try {
+                    String isbn = row.value("isbn");
+                    if (isbn != null && existingIsbns.contains(isbn)) {
+                        throw new IllegalArgumentException("کتاب با شابک " + isbn + " از قبل وجود دارد");
+                    }
+                    Book book = toBook(row);
+                    AuthorRef author = findAuthor(row, authors, createdAuthors);
+                    checkValid(book, "author");
+                    if (author == null) {
+                        author = createAuthor(row, createdAuthors);
+                    }
+                    book.setAuthor(entityManager.getReference(Author.class, author.id));
+                    entityManager.persist(book);
+                    existingIsbns.add(isbn);
+                    eventPublisher.publishEvent(BookChangedEvent.created(toDTO(book, author)));
+                    imported++;
+                } catch (IllegalArgumentException ex) {
+                    entityManager.persist(new ImportRowError(jobId, row.number, truncate(row.value("isbn"), 64),
+                            truncate(ex.getMessage(), MAX_MESSAGE_LENGTH)));
+                    failed++;
+                }
+            }
+
+            ImportJob job = entityManager.find(ImportJob.class, jobId);
+            job.recordChunk(rows.get(rows.size() - 1).number, imported, failed);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        // نویسندگان جدید فقط بعد از commit به map اضافه می‌شوند
+        authors.byEmail.putAll(createdAuthors);
+        for (AuthorRef author : createdAuthors.values()) {
+            authors.byId.put(author.id, author);
+        }
+    }
+
+    // نویسنده موجود با ایمیل یا شناسه؛ null یعنی نویسنده با این ایمیل باید ساخته شود
+    private AuthorRef findAuthor(ImportRow row, AuthorLookup authors, Map<String, AuthorRef> createdAuthors) {
+        String email = row.value("authoremail");
+        if (email != null) {
+            String key = email.toLowerCase(Locale.ROOT);
+            AuthorRef author = authors.byEmail.get(key);
+            return author != null ? author : createdAuthors.get(key);
+        }
+
+        String authorId = row.value("authorid");
+        if (authorId == null) {
+            throw new IllegalArgumentException("ایمیل یا شناسه نویسنده مشخص نشده است");
+        }
+        AuthorRef author = authors.byId.get(parseLong(authorId, "شناسه نویسنده"));
+        if (author == null) {
+            throw new IllegalArgumentException("نویسنده با ID " + authorId + " یافت نشد");
+        }
+        return author;
+    }
+
+    private AuthorRef createAuthor(ImportRow row, Map<String, AuthorRef> createdAuthors) {
+        String email = row.value("authoremail");
+        Author author = new Author(row.value("authorfirstname"), row.value("authorlastname"), email, null);
+        checkValid(author, null);
+        entityManager.persist(author);
+
+        AuthorRef ref = new AuthorRef(author.getId(), author.getFullName());
+        createdAuthors.put(email.toLowerCase(Locale.ROOT), ref);
+
+        AuthorDTO dto = new AuthorDTO(author.getFirstName(), author.getLastName());
+        dto.setId(author.getId());
+        dto.setEmail(email);
+        dto.setBookCount(0);
+        eventPublisher.publishEvent(AuthorChangedEvent.created(dto));
+        return ref;
+    }
+
+    private Book toBook(ImportRow row) {
+        Book book = new Book();
+        book.setTitle(row.value("title"));
+        book.setIsbn(row.value("isbn"));
+        book.setCategory(parseEnum(BookCategory.class, row.value("category"), "دسته‌بندی"));
+        String status = row.value("status");
+        book.setStatus(status != null ? parseEnum(BookStatus.class, status, "وضعیت") : BookStatus.AVAILABLE);
+
+        String price = row.value("price");
+        if (price != null) {
+            try {
+                book.setPrice(new BigDecimal(price));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("قیمت نامعتبر: " + price);
+            }
+        }
+        String pageCount = row.value("pagecount");
+        if (pageCount != null) {
+            book.setPageCount((int) parseLong(pageCount, "تعداد صفحات"));
+        }
+        String publicationDate = row.value("publicationdate");
+        if (publicationDate != null) {
+            try {
+                book.setPublicationDate(LocalDate.parse(publicationDate));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("تاریخ انتشار نامعتبر (قالب yyyy-MM-dd): " + publicationDate);
+            }
+        }
+        return book;
+    }
+
+    // همان قیدهای bean validation که هنگام persist بررسی می‌شوند، ولی به صورت خطای ردیف
+    private void checkValid(Object entity, String ignoredProperty) {
+        StringJoiner messages = new StringJoiner("؛ ");
+        for (ConstraintViolation<Object> violation : validator.validate(entity)) {
+            if (!violation.getPropertyPath().toString().equals(ignoredProperty)) {
+                messages.add(violation.getMessage());
+            }
+        }
+        if (messages.length() > 0) {
+            throw new IllegalArgumentException(messages.toString());
+        }
+    }
+
+    private Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("فایل درون‌ریزی سطر عنوان ندارد");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("ستون " + column + " در سطر عنوان فایل وجود ندارد");
+            }
+        }
+        if (!columns.containsKey("authoremail") && !columns.containsKey("authorid")) {
+            throw new IllegalArgumentException("ستون authorEmail یا authorId در سطر عنوان فایل وجود ندارد");
+        }
+        return columns;
+    }
+
+    // همه نویسندگان با پیمایش keyset؛ فقط شناسه، نام و ایمیل در حافظه نگه داشته می‌شود
+    private AuthorLookup loadAuthors() {
+        AuthorLookup lookup = new AuthorLookup();
+        long afterId = 0;
+        List<AuthorName> rows;
+        do {
+            rows = authorRepository.findAuthorNames(afterId, PageRequest.of(0, AUTHOR_LOAD_BATCH_SIZE));
+            for (AuthorName row : rows) {
+                AuthorRef author = new AuthorRef(row.getId(), row.getFirstName() + " " + row.getLastName());
+                lookup.byId.put(row.getId(), author);
+                if (row.getEmail() != null) {
+                    lookup.byEmail.put(row.getEmail().toLowerCase(Locale.ROOT), author);
+                }
+                afterId = row.getId();
+            }
+        } while (rows.size() == AUTHOR_LOAD_BATCH_SIZE);
+        return lookup;
+    }
+
+    private void finish(Long jobId, ImportJobStatus status, String message) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            ImportJob job = findJob(jobId);
+            job.setStatus(status);
+            job.setMessage(truncate(message, MAX_MESSAGE_LENGTH));
+            job.setFinishedAt(LocalDateTime.now());
+        });
+    }
+
+    private ImportJob findJob(Long id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("کار درون‌ریزی با ID " + id + " یافت نشد"));
+    }
+
+    private Path fileOf(Long jobId) {
+        return importDir.resolve(jobId + ".csv");
+    }
+
+    private static BookDTO toDTO(Book book, AuthorRef author) {
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setIsbn(book.getIsbn());
+        dto.setCategory(book.getCategory());
+        dto.setStatus(book.getStatus());
+        dto.setPrice(book.getPrice());
+        dto.setPageCount(book.getPageCount());
+        dto.setPublicationDate(book.getPublicationDate());
+        dto.setAuthorId(author.id);
+        dto.setAuthorName(author.fullName);
+        return dto;
+    }
+
+    private static ImportJobDTO convertToDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.getId());
+        dto.setFileName(job.getFileName());
+        dto.setStatus(job.getStatus());
+        dto.setCommittedRows(job.getCommittedRows());
+        dto.setImportedRows(job.getImportedRows());
+        dto.setFailedRows(job.getFailedRows());
+        dto.setMessage(job.getMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(label + " نامعتبر: " + value);
+        }
+    }
+
+    private static long parseLong(String value, String label) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(label + " نامعتبر: " + value);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    // یک ردیف داده فایل به همراه شماره آن
+    private static class ImportRow {
+
+        private final long number;
+        private final List<String> values;
+        private final Map<String, Integer> columns;
+
+        private ImportRow(long number, List<String> values, Map<String, Integer> columns) {
+            this.number = number;
+            this.values = values;
+            this.columns = columns;
+        }
+
+        // مقدار trim‌شده ستون؛ ستون ناموجود یا خالی null است
+        private String value(String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    private static class AuthorRef {
+
+        private final Long id;
+        private final String fullName;
+
+        private AuthorRef(Long id, String fullName) {
+            this.id = id;
+            this.fullName = fullName;
+        }
+    }
+
+    private static class AuthorLookup {
+
+        private final Map<String, AuthorRef> byEmail = new HashMap<>();
+        private final Map<Long, AuthorRef> byId = new HashMap<>();
+    }
+}
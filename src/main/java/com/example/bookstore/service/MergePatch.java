@@ -0,0 +1,133 @@
+package com.example.bookstore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.beans.PropertyDescriptor;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * بدنه JSON Merge Patch (RFC 7396) برای یک DTO تخت
+ * نکته: فقط کلیدهای موجود در بدنه تغییر می‌کنند و null یعنی پاک کردن مقدار؛ هر مقدار با همان constraintهای
+ * DTO و entity (validateValue) سنجیده می‌شود چون UPDATE هدفمند از اعتبارسنجی entity در flush عبور نمی‌کند
+ */
+public final class MergePatch {
+
+    // نسخه مورد انتظار (@Version)؛ اگر باشد UPDATE بدون خواندن entity و با شرط نسخه اجرا می‌شود
+    public static final String VERSION_FIELD = "version";
+
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
+    private final Map<String, Object> values;
+    private final Long expectedVersion;
+
+    private MergePatch(Map<String, Object> values, Long expectedVersion) {
+        this.values = values;
+        this.expectedVersion = expectedVersion;
+    }
+
+    /**
+     * تبدیل مقادیر خام JSON به نوع propertyهای DTO و اعتبارسنجی آن‌ها
+     */
+    public static MergePatch of(Map<String, Object> body, Class<?> dtoClass, Class<?> entityClass,
+                                Set<String> patchableFields, ObjectMapper objectMapper, Validator validator) {
+        if (body == null || body.isEmpty()) {
+            throw new IllegalArgumentException("بدنه درخواست ویرایش خالی است");
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        Set<ConstraintViolation<?>> violations = new HashSet<>();
+        Long expectedVersion = null;
+        for (Map.Entry<String, Object> entry : body.entrySet()) {
+            String field = entry.getKey();
+            if (VERSION_FIELD.equals(field)) {
+                expectedVersion = convert(objectMapper, field, entry.getValue(), Long.class);
+                continue;
+            }
+            if (!patchableFields.contains(field)) {
+                throw new IllegalArgumentException("فیلد " + field + " قابل ویرایش نیست");
+            }
+
+            PropertyDescriptor property = BeanUtils.getPropertyDescriptor(dtoClass, field);
+            Object value = convert(objectMapper, field, entry.getValue(), property.getPropertyType());
+            violations.addAll(validator.validateValue(dtoClass, field, value));
+            if (BeanUtils.getPropertyDescriptor(entityClass, field) != null) {
+                violations.addAll(validator.validateValue(entityClass, field, value));
+            }
+            values.put(field, value);
+        }
+
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return new MergePatch(values, expectedVersion);
+    }
+
+    private static <T> T convert(ObjectMapper objectMapper, String field, Object raw, Class<T> type) {
+        try {
+            return objectMapper.convertValue(raw, type);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("مقدار فیلد " + field + " نامعتبر است");
+        }
+    }
+
+    public boolean contains(String field) {
+        return values.containsKey(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String field) {
+        return (T) values.get(field);
+    }
+
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public boolean hasExpectedVersion() {
+        return expectedVersion != null;
+    }
+
+    /**
+     * UPDATE هدفمند JPQL فقط روی ستون‌های داده‌شده به شرط نسخه؛ ۰ یعنی ردیف نیست یا نسخه عوض شده
+     * نکته: کلیدهای assignments نام property در entity هستند (مثلاً author به جای authorId)
+     */
+    public int executeUpdate(EntityManager entityManager, Class<?> entityClass, Long id,
+                             Map<String, Object> assignments) {
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entityClass.getSimpleName()).append(" e SET ");
+        for (String property : assignments.keySet()) {
+            jpql.append("e.").append(property).append(" = :").append(property).append(", ");
+        }
+        jpql.append("e.version = e.version + 1, e.updatedAt = :updatedAt WHERE e.id = :id AND e.version = :version");
+
+        Query query = entityManager.createQuery(jpql.toString());
+        assignments.forEach(query::setParameter);
+        query.setParameter("updatedAt", LocalDateTime.now());
+        query.setParameter("id", id);
+        query.setParameter("version", expectedVersion);
+        try {
+            return query.executeUpdate();
+        } catch (PersistenceException ex) {
+            // این کوئری از proxy مخزن عبور نمی‌کند؛ نقض unique به DataIntegrityViolationException (409) ترجمه می‌شود
+            DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(ex);
+            throw translated != null ? translated : ex;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bookstore.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * cursor مات برای صفحه‌بندی keyset
+ * نکته: کلیدهای آخرین ردیف صفحه (مثلاً id یا ستون مرتب‌سازی + id) به صورت Base64 کد می‌شوند
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SEPARATOR = "\u001f";
+
+    private final String[] keys;
+
+    private PageCursor(String[] keys) {
+        this.keys = keys;
+    }
+
+    public static PageCursor of(Object... keys) {
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = String.valueOf(keys[i]);
+        }
+        return new PageCursor(values);
+    }
+
+    /**
+     * cursor خالی یعنی صفحه اول؛ در این صورت null برمی‌گردد
+     */
+    public static PageCursor decode(String token, int expectedKeys) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] values = raw.split(SEPARATOR, -1);
+            if (values.length != expectedKeys) {
+                throw new IllegalArgumentException("cursor صفحه نامعتبر است");
+            }
+            return new PageCursor(values);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("cursor صفحه نامعتبر است");
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, keys);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getString(int index) {
+        return keys[index];
+    }
+
+    public long getLong(int index) {
+        try {
+            return Long.parseLong(keys[index]);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("cursor صفحه نامعتبر است");
+        }
+    }
+
+    // اندازه صفحه همیشه بین ۱ و MAX_PAGE_SIZE محدود می‌شود
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    // شناسه آخرین ردیف دیده‌شده؛ برای صفحه اول 0
+    public static long afterId(String token) {
+        PageCursor cursor = decode(token, 1);
+        return cursor == null ? 0L : cursor.getLong(0);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.PriceAdjustmentDTO;
+import com.example.bookstore.dto.PriceAdjustmentResultDTO;
+
+/**
+ * تغییر گروهی قیمت کتاب‌ها با UPDATE مجموعه‌ای
+ */
+public interface PricingService {
+
+    PriceAdjustmentResultDTO adjustPrices(PriceAdjustmentDTO adjustment);
+}
@@ -0,0 +1,170 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.PriceAdjustmentDTO;
+import com.example.bookstore.dto.PriceAdjustmentResultDTO;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.event.BookPricesChangedEvent;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.AuthorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * تغییر گروهی قیمت با UPDATE مجموعه‌ای به جای بارگذاری و ذخیره تک‌تک کتاب‌ها
+ * نکته: کتاب‌های منطبق به ترتیب id در chunkهای chunkSize تایی و هر chunk در تراکنش جداگانه به‌روز می‌شوند
+ * تا قفل ردیف‌ها کوتاه بماند؛ مجموعه کوچک‌تر از یک chunk یعنی یک SELECT شناسه و یک UPDATE.
+ * UPDATE از نوع bulk در Hibernate خودش region کتاب‌ها در cache سطح دوم و query cache را باطل می‌کند
+ */
+@Service
+public class PricingServiceImpl implements PricingService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AuthorRepository authorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public PricingServiceImpl(AuthorRepository authorRepository, ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bookstore.pricing.chunk-size:5000}") int chunkSize) {
+        this.authorRepository = authorRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public PriceAdjustmentResultDTO adjustPrices(PriceAdjustmentDTO adjustment) {
+        if ((adjustment.getPercent() == null) == (adjustment.getAmount() == null)) {
+            throw new IllegalArgumentException("دقیقاً یکی از percent یا amount باید مشخص شود");
+        }
+        if (adjustment.getAuthorId() != null && !authorRepository.existsById(adjustment.getAuthorId())) {
+            throw new ResourceNotFoundException("نویسنده با ID " + adjustment.getAuthorId() + " یافت نشد");
+        }
+
+        Map<String, Object> filterParameters = new LinkedHashMap<>();
+        Map<String, Object> priceParameters = new LinkedHashMap<>();
+        String filter = filterOf(adjustment, filterParameters);
+        String newPrice = newPriceOf(adjustment, priceParameters);
+
+        long affected = 0;
+        int chunks = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> adjustChunk(filter, filterParameters, newPrice, priceParameters, from));
+            if (chunk == null) {
+                break;
+            }
+            affected += chunk.updated;
+            chunks++;
+            afterId = chunk.lastId;
+            if (chunk.size < chunkSize) {
+                break;
+            }
+        }
+        return new PriceAdjustmentResultDTO(affected, chunks);
+    }
+
+    // شناسه‌های chunk بعدی و سپس یک UPDATE روی همان بازه id؛ فیلتر در UPDATE تکرار می‌شود
+    // تا کتابی که بین دو دستور تغییر کرده و دیگر منطبق نیست دست نخورد
+    private Chunk adjustChunk(String filter, Map<String, Object> filterParameters,
+                              String newPrice, Map<String, Object> priceParameters, long afterId) {
+        Query select = entityManager.createQuery(
+                "SELECT b.id FROM Book b WHERE " + filter + " AND b.id > :afterId ORDER BY b.id");
+        filterParameters.forEach(select::setParameter);
+        select.setParameter("afterId", afterId);
+        select.setMaxResults(chunkSize);
+        @SuppressWarnings("unchecked")
+        List<Long> ids = select.getResultList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+        long lastId = ids.get(ids.size() - 1);
+
+        Query update = entityManager.createQuery("UPDATE Book b SET b.price = " + newPrice +
+                ", b.version = b.version + 1, b.updatedAt = :now WHERE " + filter +
+                " AND b.id > :afterId AND b.id <= :lastId");
+        filterParameters.forEach(update::setParameter);
+        priceParameters.forEach(update::setParameter);
+        update.setParameter("now", LocalDateTime.now());
+        update.setParameter("afterId", afterId);
+        update.setParameter("lastId", lastId);
+        int updated = update.executeUpdate();
+
+        eventPublisher.publishEvent(new BookPricesChangedEvent(ids));
+        return new Chunk(ids.size(), lastId, updated);
+    }
+
+    private static String filterOf(PriceAdjustmentDTO adjustment, Map<String, Object> parameters) {
+        StringBuilder filter = new StringBuilder("b.price IS NOT NULL");
+        if (adjustment.getCategory() != null) {
+            filter.append(" AND b.category = :category");
+            parameters.put("category", adjustment.getCategory());
+        }
+        if (adjustment.getAuthorId() != null) {
+            filter.append(" AND b.author.id = :authorId");
+            parameters.put("authorId", adjustment.getAuthorId());
+        }
+        if (adjustment.getPublishedFrom() != null) {
+            filter.append(" AND b.publicationDate >= :publishedFrom");
+            parameters.put("publishedFrom", adjustment.getPublishedFrom());
+        }
+        if (adjustment.getPublishedTo() != null) {
+            filter.append(" AND b.publicationDate <= :publishedTo");
+            parameters.put("publishedTo", adjustment.getPublishedTo());
+        }
+        if (adjustment.getMinPrice() != null) {
+            filter.append(" AND b.price >= :minPrice");
+            parameters.put("minPrice", adjustment.getMinPrice());
+        }
+        if (adjustment.getMaxPrice() != null) {
+            filter.append(" AND b.price <= :maxPrice");
+            parameters.put("maxPrice", adjustment.getMaxPrice());
+        }
+        return filter.toString();
+    }
+
+    // قیمت جدید گرد و حداقل صفر؛ ضریب و مقدار به صورت پارامتر و scale به صورت عدد ثابت در عبارت
+    private static String newPriceOf(PriceAdjustmentDTO adjustment, Map<String, Object> parameters) {
+        String changed;
+        if (adjustment.getPercent() != null) {
+            changed = "b.price * :factor";
+            parameters.put("factor", BigDecimal.ONE.add(adjustment.getPercent().movePointLeft(2)));
+        } else {
+            changed = "b.price + :amount";
+            parameters.put("amount", adjustment.getAmount());
+        }
+        String rounded = adjustment.getRounding().apply(changed, adjustment.getScale());
+        return "CASE WHEN " + rounded + " < 0 THEN 0 ELSE " + rounded + " END";
+    }
+
+    private static class Chunk {
+
+        private final int size;
+        private final long lastId;
+        private final int updated;
+
+        private Chunk(int size, long lastId, int updated) {
+            this.size = size;
+            this.lastId = lastId;
+            this.updated = updated;
+        }
+    }
+}
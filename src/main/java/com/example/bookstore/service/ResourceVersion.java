@@ -0,0 +1,75 @@
+package com.example.bookstore.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * نسخه یک منبع برای GET شرطی: ETag قوی و (فقط وقتی زمان به تنهایی کافی است) Last-Modified
+ * نکته: از ستون‌های updated_at و تعداد ردیف‌ها ساخته می‌شود تا بدون بارگذاری entity و ساخت JSON قابل مقایسه باشد.
+ * حذف ردیف یا جابه‌جایی کتاب بین نویسنده‌ها هیچ updated_atی را جلو نمی‌برد، پس نسخه‌ای که تعداد یا شماره نسل
+ * دارد Last-Modified نمی‌فرستد تا If-Modified-Since به تنهایی 304 کهنه نگیرد
+ */
+public final class ResourceVersion {
+
+    private final String eTag;
+    private final long lastModified;
+
+    private ResourceVersion(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * همه اجزا در ETag اثر دارند؛ بدون Last-Modified
+     */
+    public static ResourceVersion of(Object... parts) {
+        return new ResourceVersion(eTagOf(parts), -1);
+    }
+
+    /**
+     * برای منبعی که هر تغییرش یکی از این زمان‌ها را جلو می‌برد (مثلاً یک کتاب و نویسنده‌اش)؛
+     * بزرگ‌ترین زمان Last-Modified می‌شود
+     */
+    public static ResourceVersion timestamped(Object id, LocalDateTime... times) {
+        Object[] parts = new Object[times.length + 1];
+        parts[0] = id;
+        LocalDateTime latest = null;
+        for (int i = 0; i < times.length; i++) {
+            parts[i + 1] = times[i];
+            if (times[i] != null && (latest == null || times[i].isAfter(latest))) {
+                latest = times[i];
+            }
+        }
+        long lastModified = latest == null ? -1 : latest.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ResourceVersion(eTagOf(parts), lastModified);
+    }
+
+    private static String eTagOf(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (Object part : parts) {
+            raw.append(part).append('|');
+        }
+        return '"' + DigestUtils.md5DigestAsHex(raw.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * نسخه یک نمایش دیگر از همان داده (مثلاً با fields=)؛ Last-Modified همان است ولی ETag متفاوت
+     */
+    public ResourceVersion withVariant(String variant) {
+        String raw = eTag + '|' + variant;
+        return new ResourceVersion('"' + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + '"',
+                lastModified);
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    // -1 یعنی زمان به تنهایی نسخه را پوشش نمی‌دهد (فهرست‌ها، نویسنده با bookCount) و فقط ETag مقایسه می‌شود
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.AuthorStatsDTO;
+import com.example.bookstore.dto.BookStatsDTO;
+import com.example.bookstore.dto.CacheRegionStatsDTO;
+import com.example.bookstore.dto.InventoryStatsDTO;
+import com.example.bookstore.dto.KeyFilterStatsDTO;
+import com.example.bookstore.dto.LoanLedgerStatsDTO;
+import com.example.bookstore.dto.ReadModelStatsDTO;
+import com.example.bookstore.enums.BookStatsDimension;
+
+import java.util.List;
+
+/**
+ * service interface: آمار عملیاتی برنامه
+ */
+public interface StatsService {
+
+    List<CacheRegionStatsDTO> getCacheStatistics();
+    List<KeyFilterStatsDTO> getKeyFilterStatistics();
+    InventoryStatsDTO getInventory();
+    ReadModelStatsDTO getReadModelStatistics();
+    LoanLedgerStatsDTO getLoanLedgerStatistics();
+    BookStatsDTO getBookStatistics(List<BookStatsDimension> groupBy);
+    AuthorStatsDTO getAuthorStatistics();
+}
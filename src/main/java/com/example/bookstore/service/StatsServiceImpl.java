@@ -0,0 +1,168 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.AuthorStatsDTO;
+import com.example.bookstore.dto.BookStatsDTO;
+import com.example.bookstore.dto.CacheRegionStatsDTO;
+import com.example.bookstore.dto.InventoryStatsDTO;
+import com.example.bookstore.dto.KeyFilterStatsDTO;
+import com.example.bookstore.dto.LoanLedgerStatsDTO;
+import com.example.bookstore.dto.ReadModelStatsDTO;
+import com.example.bookstore.enums.BookStatsDimension;
+import com.example.bookstore.ledger.LoanLedger;
+import com.example.bookstore.readmodel.CatalogReadModel;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorSummary;
+import com.example.bookstore.repository.AuthorRepository.BookSpread;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.search.KeyExistenceFilter;
+import com.example.bookstore.stats.InventoryCounters;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * service implementation: آمار cache از Hibernate Statistics و MBeanهای JCache خوانده می‌شود
+ * نکته: Hibernate تعداد eviction را نگه نمی‌دارد، پس این عدد از CacheStatisticsMXBean خود provider می‌آید
+ */
+@Service
+public class StatsServiceImpl implements StatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsServiceImpl.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final KeyExistenceFilter keyExistenceFilter;
+    private final InventoryCounters inventoryCounters;
+    private final CatalogReadModel catalogReadModel;
+    private final LoanLedger loanLedger;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    @Autowired
+    public StatsServiceImpl(EntityManagerFactory entityManagerFactory, KeyExistenceFilter keyExistenceFilter,
+                            InventoryCounters inventoryCounters, CatalogReadModel catalogReadModel,
+                            LoanLedger loanLedger, BookRepository bookRepository, AuthorRepository authorRepository) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.keyExistenceFilter = keyExistenceFilter;
+        this.inventoryCounters = inventoryCounters;
+        this.catalogReadModel = catalogReadModel;
+        this.loanLedger = loanLedger;
+    }
+
+    @Override
+    public List<CacheRegionStatsDTO> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStatsDTO> regions = new ArrayList<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            CacheRegionStatsDTO dto = new CacheRegionStatsDTO(regionName);
+            dto.setHits(region.getHitCount());
+            dto.setMisses(region.getMissCount());
+            dto.setPuts(region.getPutCount());
+            dto.setEvictions(evictionCount(regionName));
+            regions.add(dto);
+        }
+
+        // region نتایج query در فهرست بالا نیست؛ آمار آن جداگانه گزارش می‌شود
+        CacheRegionStatsDTO queries = new CacheRegionStatsDTO("default-query-results-region");
+        queries.setHits(statistics.getQueryCacheHitCount());
+        queries.setMisses(statistics.getQueryCacheMissCount());
+        queries.setPuts(statistics.getQueryCachePutCount());
+        queries.setEvictions(evictionCount(queries.getRegion()));
+        regions.add(queries);
+        return regions;
+    }
+
+    @Override
+    public List<KeyFilterStatsDTO> getKeyFilterStatistics() {
+        return keyExistenceFilter.stats();
+    }
+
+    // فقط جمع شمارنده‌های درون حافظه؛ به دیتابیس نمی‌رود
+    @Override
+    public InventoryStatsDTO getInventory() {
+        return inventoryCounters.snapshot();
+    }
+
+    @Override
+    public ReadModelStatsDTO getReadModelStatistics() {
+        return catalogReadModel.stats();
+    }
+
+    @Override
+    public LoanLedgerStatsDTO getLoanLedgerStatistics() {
+        return loanLedger.stats();
+    }
+
+    // ابعاد تکراری یک بار حساب می‌شوند؛ ترتیب درخواست ترتیب ستون‌های GROUP BY و مرتب‌سازی است
+    @Override
+    @Transactional(readOnly = true)
+    public BookStatsDTO getBookStatistics(List<BookStatsDimension> groupBy) {
+        List<BookStatsDimension> dimensions = groupBy == null
+                ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(groupBy));
+        return new BookStatsDTO(dimensions, bookRepository.aggregateBooks(dimensions));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AuthorStatsDTO getAuthorStatistics() {
+        AuthorSummary summary = authorRepository.summarizeAuthors();
+        BookSpread spread = authorRepository.summarizeBookSpread();
+        List<Long> top = authorRepository.findBookCountsPerAuthor(PageRequest.of(0, 1));
+
+        AuthorStatsDTO dto = new AuthorStatsDTO();
+        dto.setAuthors(summary.getCount());
+        dto.setWithBooks(spread.getWithBooks());
+        dto.setWithoutBooks(summary.getCount() - spread.getWithBooks());
+        dto.setBooks(spread.getBooks());
+        dto.setMaxBooksPerAuthor(top.isEmpty() ? 0 : top.get(0));
+        if (summary.getCount() > 0) {
+            dto.setAvgBooksPerAuthor(BigDecimal.valueOf(spread.getBooks())
+                    .divide(BigDecimal.valueOf(summary.getCount()), 2, RoundingMode.HALF_UP));
+        }
+        dto.setMinAge(summary.getMinAge());
+        dto.setMaxAge(summary.getMaxAge());
+        if (summary.getAvgAge() != null) {
+            dto.setAvgAge(BigDecimal.valueOf(summary.getAvgAge()).setScale(1, RoundingMode.HALF_UP));
+        }
+        return dto;
+    }
+
+    private long evictionCount(String cacheName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Set<ObjectName> names = server.queryNames(new ObjectName(
+                    "javax.cache:type=CacheStatistics,CacheManager=*,Cache=" + cacheName), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += ((Number) server.getAttribute(name, "CacheEvictions")).longValue();
+            }
+            return evictions;
+        } catch (JMException | RuntimeException ex) {
+            log.debug("Eviction statistics unavailable for cache {}", cacheName, ex);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.bookstore.stats;
+
+import com.example.bookstore.dto.AuthorDTO;
+import com.example.bookstore.dto.AuthorRankDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.event.AuthorChangedEvent;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.AuthorRepository;
+import com.example.bookstore.repository.AuthorRepository.AuthorRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * جدول رتبه‌بندی نویسندگان بر اساس تعداد کتاب و تعداد امانت، به‌روز شونده با رویدادهای بعد از commit
+ * نکته: هر جدول یک skip list مرتب روی (تعداد نزولی، id) است؛ به‌روزرسانی یک حذف و یک درج O(log n)
+ * و خواندن k نفر اول فقط پیمایش k گره اول است
+ */
+@Component
+public class AuthorLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorLeaderboard.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final AuthorRepository authorRepository;
+
+    private final Board books = new Board();
+    // امانت‌ها از زمان شروع برنامه شمرده می‌شوند؛ ستونی در دیتابیس برای آن نیست
+    private final Board borrows = new Board();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    // تغییری با حالت قبلی نامعلوم رسیده و ممکن است نویسنده کتاب عوض شده باشد
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @Autowired
+    public AuthorLeaderboard(AuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        log.info("Author leaderboard loaded with {} authors", names.size());
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.leaderboard.reconcile-interval:PT10M}",
+            initialDelayString = "${bookstore.leaderboard.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.leaderboard.dirty-check-interval:PT5S}")
+    public void reconcileIfDirty() {
+        if (dirty.get()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * تعداد کتاب‌ها و نام‌ها دوباره از GROUP BY نویسندگان خوانده می‌شوند؛ فقط نویسنده‌هایی که عددشان فرق کرده جابه‌جا می‌شوند
+     * رویدادی که وسط پیمایش برسد ممکن است با عدد پیمایش بازنویسی شود؛ آشتی بعدی آن را درست می‌کند
+     */
+    public synchronized void reconcile() {
+        dirty.set(false);
+        Set<Long> seen = new HashSet<>();
+        long afterId = 0;
+        List<AuthorRow> rows;
+        do {
+            rows = authorRepository.findAuthorRows(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (AuthorRow row : rows) {
+                seen.add(row.getId());
+                names.put(row.getId(), row.getFirstName() + " " + row.getLastName());
+                books.set(row.getId(), row.getBookCount());
+                borrows.add(row.getId(), 0);
+                afterId = row.getId();
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+
+        for (Long authorId : new ArrayList<>(names.keySet())) {
+            if (!seen.contains(authorId)) {
+                removeAuthor(authorId);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO previous = event.getPrevious();
+        BookDTO current = event.getCurrent();
+        if (!event.isPreviousKnown()) {
+            // upsert و PATCH با نسخه نویسنده قبلی را نمی‌دانند
+            dirty.set(true);
+            return;
+        }
+        if (previous == null) {
+            books.add(current.getAuthorId(), 1);
+        } else if (current == null) {
+            books.add(previous.getAuthorId(), -1);
+        } else {
+            if (!Objects.equals(previous.getAuthorId(), current.getAuthorId())) {
+                books.add(previous.getAuthorId(), -1);
+                books.add(current.getAuthorId(), 1);
+            }
+            if (previous.getStatus() != BookStatus.BORROWED && current.getStatus() == BookStatus.BORROWED) {
+                borrows.add(current.getAuthorId(), 1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.isDeleted()) {
+            removeAuthor(event.getAuthorId());
+            return;
+        }
+        AuthorDTO author = event.getCurrent();
+        if (event.isNameChanged()) {
+            names.put(author.getId(), author.getFirstName() + " " + author.getLastName());
+        }
+        if (event.isCreated()) {
+            books.add(author.getId(), 0);
+            borrows.add(author.getId(), 0);
+        }
+    }
+
+    public List<AuthorRankDTO> topByBooks(int limit) {
+        return ranks(books, limit);
+    }
+
+    public List<AuthorRankDTO> topByBorrows(int limit) {
+        return ranks(borrows, limit);
+    }
+
+    private List<AuthorRankDTO> ranks(Board board, int limit) {
+        List<AuthorRankDTO> top = new ArrayList<>(limit);
+        for (Board.Entry entry : board.top(limit)) {
+            top.add(new AuthorRankDTO(top.size() + 1, entry.authorId, names.get(entry.authorId), entry.count));
+        }
+        return top;
+    }
+
+    private void removeAuthor(long authorId) {
+        books.remove(authorId);
+        borrows.remove(authorId);
+        names.remove(authorId);
+    }
+
+    /**
+     * یک جدول مرتب: map شمارنده هر نویسنده و skip list همان (تعداد، id)ها
+     * نکته: تغییر هر نویسنده داخل compute همان کلید انجام می‌شود، پس درج و حذف یک نویسنده با هم تداخل ندارند؛
+     * درج قبل از حذف است تا خواننده همزمان نویسنده را گم نکند و تکرار احتمالی هنگام خواندن کنار گذاشته می‌شود
+     */
+    static final class Board {
+
+        private final Map<Long, Long> counts = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+
+        void add(long authorId, long delta) {
+            counts.compute(authorId, (id, old) -> move(id, old, (old != null ? old : 0) + delta));
+        }
+
+        void set(long authorId, long count) {
+            counts.compute(authorId, (id, old) -> move(id, old, count));
+        }
+
+        void remove(long authorId) {
+            counts.computeIfPresent(authorId, (id, old) -> {
+                ranking.remove(new Entry(id, old));
+                return null;
+            });
+        }
+
+        private Long move(long authorId, Long old, long count) {
+            long next = Math.max(0, count);
+            if (old == null || old != next) {
+                ranking.add(new Entry(authorId, next));
+                if (old != null) {
+                    ranking.remove(new Entry(authorId, old));
+                }
+            }
+            return next;
+        }
+
+        List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(limit);
+            Set<Long> seen = new HashSet<>();
+            Iterator<Entry> entries = ranking.iterator();
+            while (entries.hasNext() && top.size() < limit) {
+                Entry entry = entries.next();
+                if (seen.add(entry.authorId)) {
+                    top.add(entry);
+                }
+            }
+            return top;
+        }
+
+        // ترتیب: تعداد بیشتر اول، در تساوی id کوچک‌تر
+        static final class Entry implements Comparable<Entry> {
+
+            final long authorId;
+            final long count;
+
+            Entry(long authorId, long count) {
+                this.authorId = authorId;
+                this.count = count;
+            }
+
+            @Override
+            public int compareTo(Entry other) {
+                int byCount = Long.compare(other.count, count);
+                return byCount != 0 ? byCount : Long.compare(authorId, other.authorId);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry other = (Entry) o;
+                return authorId == other.authorId && count == other.count;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(authorId, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bookstore.stats;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch روی کلیدهای ۶۴ بیتی با حافظه ثابت width × depth
+ * نکته: تخمین هرگز کمتر از مقدار واقعی نیست؛ با احتمال حداقل 1 - δ بیشتر از f + ε·N هم نیست
+ * که در آن N جمع همه افزایش‌ها، ε = e / width و δ = e^-depth است.
+ * جمع دو sketch هم‌اندازه (merge) همان sketch جریان ادغام‌شده است، پس کران برای چند بازه زمانی با N کل برقرار می‌ماند
+ * thread-safe نیست؛ فراخواننده همگام‌سازی می‌کند
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[] counts;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width و depth باید مثبت باشند");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new int[width * depth];
+    }
+
+    public void add(long key, int count) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + (int) Math.floorMod(h1 + row * h2, (long) width)] += count;
+        }
+        total += count;
+    }
+
+    // کمینه خانه‌های کلید در همه ردیف‌ها
+    public long estimate(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + (int) Math.floorMod(h1 + row * h2, (long) width)]);
+        }
+        return min;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("فقط sketchهای هم‌اندازه قابل ادغام هستند");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    public double delta() {
+        return Math.exp(-depth);
+    }
+
+    // بیشترین بیش‌برآورد با احتمال 1 - δ برای جریان فعلی: ⌈ε·N⌉
+    public long errorBound() {
+        return (long) Math.ceil(epsilon() * total);
+    }
+
+    public long byteSize() {
+        return counts.length * 4L;
+    }
+
+    // finalizer الگوریتم MurmurHash3، همان پخش کلید در BloomFilter
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.bookstore.stats;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.InventoryStatsDTO;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.BookRepository.InventoryCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * شمارنده‌های موجودی کتاب به ازای هر (دسته‌بندی، وضعیت) با LongAdder
+ * نکته: LongAdder هر thread را روی cell جداگانه می‌نویسد، پس به‌روزرسانی‌های همزمان قفل یا CAS مشترک ندارند
+ * و خواندن فقط جمع cellهاست؛ شمارنده‌ها بعد از commit با رویداد تغییر کتاب به‌روز می‌شوند
+ * و به صورت دوره‌ای با GROUP BY دیتابیس آشتی داده می‌شوند
+ */
+@Component
+public class InventoryCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryCounters.class);
+
+    private static final BookCategory[] CATEGORIES = BookCategory.values();
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
+    private final BookRepository bookRepository;
+
+    // [category.ordinal()][status.ordinal()]
+    private final LongAdder[][] counts = new LongAdder[CATEGORIES.length][STATUSES.length];
+
+    // تغییری با حالت قبلی نامعلوم رسیده و آشتی زودهنگام لازم است
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile LocalDateTime reconciledAt;
+
+    @Autowired
+    public InventoryCounters(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                counts[c][s] = new LongAdder();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        log.info("Inventory counters loaded with {} books", snapshot().getTotal());
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.inventory.reconcile-interval:PT10M}",
+            initialDelayString = "${bookstore.inventory.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.inventory.dirty-check-interval:PT5S}")
+    public void reconcileIfDirty() {
+        if (dirty.get()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * تصحیح شمارنده‌ها با دیتابیس بدون متوقف کردن به‌روزرسانی‌ها
+     * اصلاح هر خانه (تعداد دیتابیس - مقدار پیش از کوئری) است تا تغییرات همزمان با کوئری حفظ شوند؛
+     * رویدادی که قبل از کوئری commit شده ولی بعد از آن رسیده یک بار دوباره شمرده می‌شود و آشتی بعدی آن را درست می‌کند
+     */
+    public synchronized void reconcile() {
+        dirty.set(false);
+        long[][] before = sums();
+        long[][] actual = new long[CATEGORIES.length][STATUSES.length];
+        for (InventoryCount row : bookRepository.countInventory()) {
+            actual[row.getCategory().ordinal()][row.getStatus().ordinal()] = row.getCount();
+        }
+
+        long drift = 0;
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                long correction = actual[c][s] - before[c][s];
+                if (correction != 0) {
+                    counts[c][s].add(correction);
+                    drift += Math.abs(correction);
+                }
+            }
+        }
+        reconciledAt = LocalDateTime.now();
+        if (drift > 0) {
+            log.debug("Inventory counters reconciled with total drift {}", drift);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!event.isPreviousKnown()) {
+            // upsert و PATCH با نسخه حالت قبلی را نمی‌خوانند و ممکن است دسته‌بندی یا وضعیت را عوض کرده باشند
+            dirty.set(true);
+            return;
+        }
+        BookDTO previous = event.getPrevious();
+        BookDTO current = event.getCurrent();
+        if (previous != null && current != null && previous.getCategory() == current.getCategory()
+                && previous.getStatus() == current.getStatus()) {
+            return;
+        }
+        if (previous != null) {
+            cell(previous).decrement();
+        }
+        if (current != null) {
+            cell(current).increment();
+        }
+    }
+
+    public InventoryStatsDTO snapshot() {
+        long[][] sums = sums();
+        long total = 0;
+        Map<BookStatus, Long> statuses = new EnumMap<>(BookStatus.class);
+        Map<BookCategory, Map<BookStatus, Long>> categories = new EnumMap<>(BookCategory.class);
+        for (BookStatus status : STATUSES) {
+            statuses.put(status, 0L);
+        }
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            Map<BookStatus, Long> row = new EnumMap<>(BookStatus.class);
+            for (int s = 0; s < STATUSES.length; s++) {
+                row.put(STATUSES[s], sums[c][s]);
+                statuses.merge(STATUSES[s], sums[c][s], Long::sum);
+                total += sums[c][s];
+            }
+            categories.put(CATEGORIES[c], row);
+        }
+
+        InventoryStatsDTO dto = new InventoryStatsDTO();
+        dto.setTotal(total);
+        dto.setStatuses(statuses);
+        dto.setCategories(categories);
+        dto.setReconciledAt(reconciledAt);
+        dto.setReconcilePending(dirty.get());
+        return dto;
+    }
+
+    private LongAdder cell(BookDTO book) {
+        return counts[book.getCategory().ordinal()][book.getStatus().ordinal()];
+    }
+
+    private long[][] sums() {
+        long[][] sums = new long[CATEGORIES.length][STATUSES.length];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                sums[c][s] = counts[c][s].sum();
+            }
+        }
+        return sums;
+    }
+}
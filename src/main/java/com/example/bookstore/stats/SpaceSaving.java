@@ -0,0 +1,61 @@
+package com.example.bookstore.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * خلاصه Space-Saving برای k کلید پرتکرار با حداکثر capacity شمارنده
+ * نکته: هر کلید با تکرار بیشتر از N / capacity حتماً در خلاصه هست (N تعداد کل افزایش‌ها)؛
+ * کلید جدید جای کم‌شمارترین کلید را می‌گیرد و شمارنده آن را به ارث می‌برد، پس شمارنده‌ها حداکثر N / capacity بیش‌برآورد دارند.
+ * اینجا فقط فهرست نامزدها از آن خوانده می‌شود و تعداد از Count-Min می‌آید
+ * thread-safe نیست؛ فراخواننده همگام‌سازی می‌کند
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Long> counters;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity باید مثبت باشد");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    // جایگزینی با پیمایش خطی کمینه؛ capacity کوچک است و فقط وقتی پر است و کلید تازه است اجرا می‌شود
+    public void add(long key) {
+        Long count = counters.get(key);
+        if (count != null) {
+            counters.put(key, count + 1);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, 1L);
+            return;
+        }
+        Long minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : counters.entrySet()) {
+            if (entry.getValue() < min) {
+                min = entry.getValue();
+                minKey = entry.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, min + 1);
+    }
+
+    public Set<Long> keys() {
+        return counters.keySet();
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
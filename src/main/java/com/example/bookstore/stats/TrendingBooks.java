@@ -0,0 +1,135 @@
+package com.example.bookstore.stats;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.TrendingBookDTO;
+import com.example.bookstore.dto.TrendingBooksDTO;
+import com.example.bookstore.enums.BookStatus;
+import com.example.bookstore.enums.TrendingWindow;
+import com.example.bookstore.event.BookChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * کتاب‌های پرامانت ساعت/روز/هفته اخیر با حافظه ثابت، مستقل از تعداد عنوان‌ها
+ * نکته: هر پنجره حلقه‌ای از بازه‌های زمانی است و هر بازه یک Count-Min و یک Space-Saving دارد؛
+ * بازه‌ای که از پنجره بیرون برود پیش از استفاده دوباره پاک می‌شود (کاهش زمانی پله‌ای).
+ * برای خواندن، sketchهای بازه‌های پنجره جمع می‌شوند و نامزدها اجتماع خلاصه‌های Space-Saving هستند:
+ * کتابی با تکرار بیشتر از N / capacity در پنجره، در دست‌کم یک بازه هم بیشتر از سهم آن بازه است و حتماً نامزد می‌شود
+ */
+@Component
+public class TrendingBooks {
+
+    private final int sketchWidth;
+    private final int sketchDepth;
+    private final Map<TrendingWindow, Bucket[]> rings = new EnumMap<>(TrendingWindow.class);
+
+    @Autowired
+    public TrendingBooks(@Value("${bookstore.trending.sketch-width:2048}") int sketchWidth,
+                         @Value("${bookstore.trending.sketch-depth:4}") int sketchDepth,
+                         @Value("${bookstore.trending.top-k-capacity:64}") int topKCapacity) {
+        this.sketchWidth = sketchWidth;
+        this.sketchDepth = sketchDepth;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Bucket[] ring = new Bucket[window.getSlots()];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Bucket(new CountMinSketch(sketchWidth, sketchDepth), new SpaceSaving(topKCapacity));
+            }
+            rings.put(window, ring);
+        }
+    }
+
+    // فقط گذار به BORROWED (borrowBook یا ویرایشی که کتاب را امانت می‌دهد) یک امانت است
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO previous = event.getPrevious();
+        BookDTO current = event.getCurrent();
+        if (event.isPreviousKnown() && previous != null && current != null
+                && previous.getStatus() != BookStatus.BORROWED && current.getStatus() == BookStatus.BORROWED) {
+            record(current.getId(), System.currentTimeMillis());
+        }
+    }
+
+    // چند افزایش آرایه‌ای زیر یک قفل کوتاه؛ بدون کوئری و بدون تخصیص حافظه جدید
+    public synchronized void record(long bookId, long epochMillis) {
+        for (Map.Entry<TrendingWindow, Bucket[]> ring : rings.entrySet()) {
+            Bucket bucket = bucketAt(ring.getKey(), ring.getValue(), epochMillis / ring.getKey().getSlotMillis());
+            if (bucket != null) {
+                bucket.sketch.add(bookId, 1);
+                bucket.topK.add(bookId);
+            }
+        }
+    }
+
+    /**
+     * limit کتاب اول پنجره بر اساس تخمین Count-Min؛ عنوان و نویسنده را فراخواننده پر می‌کند
+     */
+    public synchronized TrendingBooksDTO top(TrendingWindow window, int limit, long epochMillis) {
+        Bucket[] ring = rings.get(window);
+        long currentSlot = epochMillis / window.getSlotMillis();
+        CountMinSketch merged = new CountMinSketch(sketchWidth, sketchDepth);
+        Set<Long> candidates = new HashSet<>();
+        for (int i = 0; i < ring.length; i++) {
+            Bucket bucket = bucketAt(window, ring, currentSlot - i);
+            if (bucket != null) {
+                merged.merge(bucket.sketch);
+                candidates.addAll(bucket.topK.keys());
+            }
+        }
+
+        List<TrendingBookDTO> books = new ArrayList<>(candidates.size());
+        for (Long bookId : candidates) {
+            books.add(new TrendingBookDTO(bookId, merged.estimate(bookId)));
+        }
+        books.sort((a, b) -> a.getBorrows() != b.getBorrows()
+                ? Long.compare(b.getBorrows(), a.getBorrows()) : Long.compare(a.getBookId(), b.getBookId()));
+
+        TrendingBooksDTO dto = new TrendingBooksDTO();
+        dto.setWindow(window);
+        dto.setSince(LocalDateTime.ofInstant(Instant.ofEpochMilli(
+                (currentSlot - ring.length + 1) * window.getSlotMillis()), ZoneId.systemDefault()));
+        dto.setTotalBorrows(merged.getTotal());
+        dto.setErrorBound(merged.errorBound());
+        dto.setConfidence(1 - merged.delta());
+        dto.setBooks(new ArrayList<>(books.subList(0, Math.min(limit, books.size()))));
+        return dto;
+    }
+
+    // خانه حلقه برای یک بازه؛ اگر هنوز داده بازه قدیمی‌تری را دارد پاک می‌شود و null یعنی خانه مال بازه جدیدتری است
+    private static Bucket bucketAt(TrendingWindow window, Bucket[] ring, long slot) {
+        Bucket bucket = ring[(int) Math.floorMod(slot, (long) window.getSlots())];
+        if (bucket.slot != slot) {
+            if (bucket.slot > slot) {
+                // ساعت سیستم عقب رفته؛ داده جدیدتر خانه حفظ می‌شود
+                return null;
+            }
+            bucket.sketch.clear();
+            bucket.topK.clear();
+            bucket.slot = slot;
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+
+        final CountMinSketch sketch;
+        final SpaceSaving topK;
+        long slot = Long.MIN_VALUE;
+
+        Bucket(CountMinSketch sketch, SpaceSaving topK) {
+            this.sketch = sketch;
+            this.topK = topK;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * امانت همزمان یک کتاب: UPDATE شرطی فقط به یک درخواست اجازه می‌دهد
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BookBorrowConcurrencyTest {
+
+    private static final int THREADS = 200;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void concurrentBorrowsHaveExactlyOneWinner() throws Exception {
+        BookDTO book = createBook("9789990000001");
+        Long version = restTemplate.getForObject("/api/books/" + book.getId(), BookDTO.class).getVersion();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return restTemplate.exchange("/api/books/" + book.getId() + "/borrow", HttpMethod.PUT,
+                            null, String.class).getStatusCode();
+                }));
+            }
+            start.countDown();
+
+            int ok = 0;
+            int rejected = 0;
+            for (Future<HttpStatus> result : results) {
+                HttpStatus status = result.get();
+                if (status == HttpStatus.OK) {
+                    ok++;
+                } else if (status == HttpStatus.BAD_REQUEST) {
+                    rejected++;
+                }
+            }
+            assertThat(ok).isEqualTo(1);
+            assertThat(rejected).isEqualTo(THREADS - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // فقط یک UPDATE موفق: وضعیت امانت و نسخه دقیقاً یکی بیشتر
+        BookDTO after = restTemplate.getForObject("/api/books/" + book.getId(), BookDTO.class);
+        assertThat(after.getStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(after.getVersion()).isEqualTo(version + 1);
+    }
+
+    private BookDTO createBook(String isbn) {
+        BookDTO book = new BookDTO();
+        book.setTitle("کتاب تست همزمانی");
+        book.setIsbn(isbn);
+        book.setCategory(BookCategory.TECHNOLOGY);
+        book.setPrice(new BigDecimal("10.00"));
+        book.setPageCount(100);
+        book.setAuthorId(1L);
+        ResponseEntity<BookDTO> created = restTemplate.postForEntity("/api/books", book, BookDTO.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return created.getBody();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.dto.BookQueryDTO;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookSortField;
+import com.example.bookstore.enums.BookStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ترکیب‌های رایج /api/books/query باید از index ترکیبی خودشان استفاده کنند
+ * نکته: همان SQL که Hibernate از Criteria ساخته با همان پارامترها EXPLAIN می‌شود (H2 در حالت MySQL)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BookQueryIndexUsageTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void categoryWithPriceRangeUsesCategoryPriceIndex() {
+        BookQueryDTO query = new BookQueryDTO();
+        query.setCategory(Collections.singletonList(BookCategory.TECHNOLOGY));
+        query.setMinPrice(new BigDecimal("10"));
+        query.setMaxPrice(new BigDecimal("50"));
+        query.setSort(BookSortField.PRICE);
+
+        assertThat(explain(query, "TECHNOLOGY"))
+                .contains("idx_books_category_price");
+    }
+
+    @Test
+    void statusWithPriceRangeUsesStatusPriceIndex() {
+        BookQueryDTO query = new BookQueryDTO();
+        query.setStatus(Collections.singletonList(BookStatus.AVAILABLE));
+        query.setMinPrice(new BigDecimal("10"));
+        query.setSort(BookSortField.PRICE);
+
+        assertThat(explain(query, "AVAILABLE")).contains("idx_books_status_price");
+    }
+
+    @Test
+    void authorWithPublicationRangeUsesAuthorPublicationIndex() {
+        BookQueryDTO query = new BookQueryDTO();
+        query.setAuthorId(1L);
+        query.setPublishedFrom(LocalDate.of(2020, 1, 1));
+        query.setPublishedTo(LocalDate.of(2024, 1, 1));
+        query.setSort(BookSortField.PUBLICATION_DATE);
+        query.setDirection(Sort.Direction.DESC);
+
+        assertThat(explain(query, LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1)))
+                .contains("idx_books_author_publication");
+    }
+
+    // Hibernate عددها را literal می‌نویسد؛ فقط پارامترهای ? به ترتیب شرط‌های filters و در انتها limit
+    private String explain(BookQueryDTO query, Object... filterValues) {
+        bookRepository.queryBookRows(query, null, null, 21);
+        String sql = RecordingStatementInspector.lastSql();
+        assertThat(sql).contains("books");
+        assertThat(sql.chars().filter(ch -> ch == '?').count()).isEqualTo(filterValues.length + 1);
+
+        Object[] args = new Object[filterValues.length + 1];
+        System.arraycopy(filterValues, 0, args, 0, filterValues.length);
+        args[filterValues.length] = 21;
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        return plan.toLowerCase();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bookstore.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * آخرین SQL هر thread برای تست‌هایی که کوئری تولیدشده Criteria را بررسی می‌کنند
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        LAST_SQL.set(sql);
+        return sql;
+    }
+
+    public static String lastSql() {
+        return LAST_SQL.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CursorPage;
+import com.example.bookstore.enums.BookCategory;
+import com.example.bookstore.enums.BookStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * فهرست کتاب‌ها با یک SELECT (JOIN نویسنده در projection)؛ تعداد statementها به تعداد ردیف‌ها بستگی ندارد
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BookListStatementCountTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void allBooksPageIsOneStatement() {
+        assertThat(statementsFor(() -> bookService.getAllBooks(null, 1))).isEqualTo(1);
+        assertThat(statementsFor(() -> bookService.getAllBooks(null, 50))).isEqualTo(1);
+    }
+
+    @Test
+    void categoryPageIsOneStatement() {
+        assertThat(statementsFor(() -> bookService.getBooksByCategory(BookCategory.TECHNOLOGY, null, 1))).isEqualTo(1);
+        assertThat(statementsFor(() -> bookService.getBooksByCategory(BookCategory.TECHNOLOGY, null, 50)))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void statusPageIsOneStatement() {
+        assertThat(statementsFor(() -> bookService.getBooksByStatus(BookStatus.AVAILABLE, null, 1))).isEqualTo(1);
+        assertThat(statementsFor(() -> bookService.getBooksByStatus(BookStatus.AVAILABLE, null, 50))).isEqualTo(1);
+    }
+
+    // بررسی وجود نویسنده یک statement جداست؛ خود فهرست همچنان یکی
+    @Test
+    void authorPageIsExistenceCheckPlusOneStatement() {
+        assertThat(statementsFor(() -> bookService.getBooksByAuthor(1L, null, 1))).isEqualTo(2);
+        assertThat(statementsFor(() -> bookService.getBooksByAuthor(1L, null, 50))).isEqualTo(2);
+    }
+
+    // query cache خالی می‌شود تا کوئری واقعاً اجرا شود؛ صفحه باید بیش از یک ردیف داشته باشد تا N+1 دیده شود
+    private long statementsFor(Supplier<CursorPage<BookDTO>> call) {
+        sessionFactory.getCache().evictQueryRegions();
+        statistics.clear();
+        CursorPage<BookDTO> page = call.get();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(page.getItems()).isNotEmpty();
+        page.getItems().forEach(book -> assertThat(book.getAuthorName()).isNotBlank());
+        return statements;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bookstore.stats;
+
+import com.example.bookstore.dto.TrendingBookDTO;
+import com.example.bookstore.dto.TrendingBooksDTO;
+import com.example.bookstore.enums.TrendingWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * کران‌های Count-Min و Space-Saving روی جریان نامتوازن (Zipf) در برابر شمارش دقیق
+ */
+class TrendingBooksAccuracyTest {
+
+    private static final int KEYS = 10_000;
+    private static final int EVENTS = 200_000;
+    private static final int WIDTH = 2048;
+    private static final int DEPTH = 4;
+    private static final int CAPACITY = 64;
+
+    @Test
+    void sketchNeverUnderestimatesAndStaysWithinBound() {
+        long[] stream = zipfStream(new Random(42));
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+        Map<Long, Long> exact = new HashMap<>();
+        for (long key : stream) {
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        assertThat(sketch.getTotal()).isEqualTo(EVENTS);
+        long bound = sketch.errorBound();
+        assertThat(bound).isEqualTo((long) Math.ceil(Math.E / WIDTH * EVENTS));
+
+        // کلیدهای دیده‌نشده هم شمرده می‌شوند (exact = 0)
+        int withinBound = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            long actual = exact.getOrDefault(key, 0L);
+            long estimate = sketch.estimate(key);
+            assertThat(estimate).as("estimate of %d", key).isGreaterThanOrEqualTo(actual);
+            if (estimate <= actual + bound) {
+                withinBound++;
+            }
+        }
+        assertThat((double) withinBound / KEYS).isGreaterThanOrEqualTo(1 - sketch.delta());
+    }
+
+    @Test
+    void everyHeavyBookIsInTop() {
+        Random random = new Random(7);
+        long[] stream = zipfStream(random);
+        TrendingWindow window = TrendingWindow.HOUR;
+        long now = 1_000 * window.getSlotMillis() + window.getSlotMillis() - 1;
+        long windowStart = (now / window.getSlotMillis() - window.getSlots() + 1) * window.getSlotMillis();
+
+        // امانت‌ها بین همه بازه‌های پنجره پخش می‌شوند تا ادغام بازه‌ها هم آزموده شود
+        TrendingBooks trending = new TrendingBooks(WIDTH, DEPTH, CAPACITY);
+        Map<Long, Long> exact = new HashMap<>();
+        long[] times = new long[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            times[i] = windowStart + (long) (random.nextDouble() * (now - windowStart));
+        }
+        Arrays.sort(times);
+        for (int i = 0; i < EVENTS; i++) {
+            trending.record(stream[i], times[i]);
+            exact.merge(stream[i], 1L, Long::sum);
+        }
+
+        TrendingBooksDTO top = trending.top(window, Integer.MAX_VALUE, now);
+        assertThat(top.getTotalBorrows()).isEqualTo(EVENTS);
+        Set<Long> candidates = top.getBooks().stream().map(TrendingBookDTO::getBookId).collect(Collectors.toSet());
+
+        long threshold = EVENTS / CAPACITY;
+        Set<Long> heavy = exact.entrySet().stream().filter(e -> e.getValue() > threshold)
+                .map(Map.Entry::getKey).collect(Collectors.toSet());
+        assertThat(heavy).isNotEmpty();
+        assertThat(candidates).containsAll(heavy);
+        for (TrendingBookDTO book : top.getBooks()) {
+            assertThat(book.getBorrows()).isGreaterThanOrEqualTo(exact.getOrDefault(book.getBookId(), 0L));
+        }
+    }
+
+    // کلید k با احتمال متناسب با 1 / k^1.1
+    private static long[] zipfStream(Random random) {
+        double[] cdf = new double[KEYS];
+        double sum = 0;
+        for (int k = 1; k <= KEYS; k++) {
+            sum += 1 / Math.pow(k, 1.1);
+            cdf[k - 1] = sum;
+        }
+        long[] stream = new long[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            stream[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return stream;
+    }
+}